@@ -0,0 +1,124 @@
+import com.faite_assessment.backend.Security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// What verifying the access token costs per request, in process and without HTTP in the way. Runs from
+// source against the compiled backend and its dependencies:
+//
+//   mvn -q compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+//   java -cp target/classes:$(cat target/cp.txt) loadtest/AuthCostBench.java [seconds=5] [threads=1]
+//
+// Three ways of getting the claims out of the same token, each warmed up and then run for `seconds` on
+// `threads` threads:
+//   rebuild x3   what JwtFilter did before: key and parser built from scratch, token verified three times
+//   verify       one verification with a parser built once (a claims cache miss)
+//   cached       JwtUtil.parseClaims on a token it has seen before (a claims cache hit)
+// Prints throughput and per-call latency percentiles for each.
+public class AuthCostBench {
+
+    private static final int MAX_SAMPLES = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        // The signing secret is private to JwtUtil; the first two modes need it to verify on their own
+        Field secretField = JwtUtil.class.getDeclaredField("SECRET");
+        secretField.setAccessible(true);
+        byte[] secret = ((String) secretField.get(null)).getBytes(StandardCharsets.UTF_8);
+
+        JwtUtil jwtUtil = new JwtUtil(50_000, Duration.ofDays(14));
+        String token = jwtUtil.generateToken(1L, "bench@x.com", "USER", UUID.randomUUID().toString());
+        SecretKey key = Keys.hmacShaKeyFor(secret);
+        JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+        Function<String, Claims> rebuild = t -> {
+            Claims claims = null;
+            for (int i = 0; i < 3; i++) {
+                claims = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secret)).build().parseClaimsJws(t).getBody();
+            }
+            return claims;
+        };
+        Function<String, Claims> verify = t -> parser.parseClaimsJws(t).getBody();
+        Function<String, Claims> cached = jwtUtil::parseClaims;
+
+        System.out.printf("seconds=%d  threads=%d  token=%d chars%n", seconds, threads, token.length());
+        run("rebuild x3", rebuild, token, seconds, threads);
+        run("verify", verify, token, seconds, threads);
+        run("cached", cached, token, seconds, threads);
+        System.exit(0);
+    }
+
+    private static void run(String name, Function<String, Claims> mode, String token, int seconds, int threads)
+            throws InterruptedException {
+        // Warm up, so the JIT has compiled the path being measured
+        long warmUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(1, seconds / 2));
+        while (System.nanoTime() < warmUntil) {
+            check(mode.apply(token));
+        }
+
+        long[] latencies = new long[MAX_SAMPLES];
+        AtomicInteger samples = new AtomicInteger();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            workers.submit(() -> {
+                try {
+                    while (!stop.get()) {
+                        long began = System.nanoTime();
+                        check(mode.apply(token));
+                        long took = System.nanoTime() - began;
+                        calls.incrementAndGet();
+                        int slot = samples.getAndIncrement();
+                        if (slot < MAX_SAMPLES) {
+                            latencies[slot] = took;
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        stop.set(true);
+        done.await();
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        workers.shutdown();
+
+        int count = Math.min(samples.get(), MAX_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("%-10s %,12.0f calls/s   us  p50=%.2f  p90=%.2f  p99=%.2f  max=%.1f%n", name,
+                calls.get() / elapsed, percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                sorted[count - 1] / 1e3);
+    }
+
+    private static void check(Claims claims) {
+        if (!"bench@x.com".equals(claims.getSubject())) {
+            throw new IllegalStateException("unexpected subject " + claims.getSubject());
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e3;
+    }
+}
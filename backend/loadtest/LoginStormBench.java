@@ -0,0 +1,153 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Browse latency with and without a login storm. No dependencies, run it straight from source:
+//
+//   java loadtest/LoginStormBench.java <base-url> <bearer-token> <login-email> [storm=64] [seconds=15] [browsers=8]
+//
+// e.g. java loadtest/LoginStormBench.java http://localhost:8080 eyJhbGci... victim@x.com 128 20
+//
+// `browsers` clients keep loading GET /api/products/browse?size=20 with the token the whole time.
+// After a quiet phase, `storm` more clients start posting wrong passwords for <login-email> (an existing
+// account, so every attempt that gets through costs a BCrypt check). Prints browse throughput and
+// latency percentiles for both phases, and how the login attempts were answered (200/401-ish, 429, 503).
+// All storm traffic comes from one IP, so to load the hashing pool rather than the throttle, start the
+// backend with higher security.login-throttle.* limits.
+public class LoginStormBench {
+
+    private static final int MAX_SAMPLES = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: LoginStormBench <base-url> <bearer-token> <login-email> [storm] [seconds] [browsers]");
+            System.exit(2);
+        }
+        String base = args[0].replaceAll("/+$", "");
+        String token = args[1];
+        String email = args[2];
+        int storm = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 15;
+        int browsers = args.length > 5 ? Integer.parseInt(args[5]) : 8;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+        HttpRequest browse = HttpRequest.newBuilder(URI.create(base + "/api/products/browse?size=20"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        HttpRequest login = HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + email + "\",\"password\":\"not-the-password\"}"))
+                .build();
+
+        long[][] latencies = {new long[MAX_SAMPLES], new long[MAX_SAMPLES]};
+        AtomicLong[] samples = {new AtomicLong(), new AtomicLong()};
+        AtomicLong[] browseErrors = {new AtomicLong(), new AtomicLong()};
+        AtomicLongArray loginStatuses = new AtomicLongArray(600);
+        AtomicLong loginErrors = new AtomicLong();
+        // -1 warming up, 0 quiet, 1 storm, 2 done
+        AtomicInteger phase = new AtomicInteger(-1);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < browsers; i++) {
+            workers.submit(() -> {
+                while (running.get()) {
+                    long start = System.nanoTime();
+                    int current = phase.get();
+                    try {
+                        HttpResponse<byte[]> response = client.send(browse, HttpResponse.BodyHandlers.ofByteArray());
+                        long elapsed = System.nanoTime() - start;
+                        if ((current == 0 || current == 1) && phase.get() == current) {
+                            if (response.statusCode() != 200) {
+                                browseErrors[current].incrementAndGet();
+                            }
+                            long index = samples[current].getAndIncrement();
+                            if (index < MAX_SAMPLES) {
+                                latencies[current][(int) index] = elapsed;
+                            }
+                        }
+                    } catch (Exception e) {
+                        if (current == 0 || current == 1) {
+                            browseErrors[current].incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        for (int i = 0; i < storm; i++) {
+            workers.submit(() -> {
+                while (running.get()) {
+                    if (phase.get() != 1) {
+                        Thread.sleep(10);
+                        continue;
+                    }
+                    try {
+                        HttpResponse<Void> response = client.send(login, HttpResponse.BodyHandlers.discarding());
+                        loginStatuses.incrementAndGet(response.statusCode());
+                    } catch (Exception e) {
+                        loginErrors.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        Thread.sleep(3_000);
+        phase.set(0);
+        Thread.sleep(seconds * 1000L);
+        phase.set(1);
+        long stormStarted = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        double stormSeconds = (System.nanoTime() - stormStarted) / 1e9;
+        phase.set(2);
+        running.set(false);
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+
+        System.out.printf("%s  browsers=%d  storm=%d  %ds per phase%n", base, browsers, storm, seconds);
+        report("quiet", latencies[0], samples[0].get(), browseErrors[0].get(), seconds);
+        report("storm", latencies[1], samples[1].get(), browseErrors[1].get(), stormSeconds);
+        long attempts = 0;
+        for (int status = 0; status < loginStatuses.length(); status++) {
+            attempts += loginStatuses.get(status);
+        }
+        System.out.printf("login attempts: %d (%.0f/sec), errors: %d%n", attempts, attempts / stormSeconds, loginErrors.get());
+        for (int status = 0; status < loginStatuses.length(); status++) {
+            if (loginStatuses.get(status) > 0) {
+                System.out.printf("  HTTP %d: %d%n", status, loginStatuses.get(status));
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void report(String name, long[] latencies, long total, long errors, double seconds) {
+        int count = (int) Math.min(total, MAX_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("%-6s browse requests/sec: %.0f   non-200: %d%n", name, total / seconds, errors);
+        if (count > 0) {
+            System.out.printf("       latency ms  p50=%.2f  p90=%.2f  p99=%.2f  max=%.2f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    sorted[count - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,114 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop load generator for /uploads. No dependencies, run it straight from source:
+//
+//   java loadtest/UploadsBench.java <url> [concurrency=32] [seconds=20] [header...]
+//
+// e.g. java loadtest/UploadsBench.java http://localhost:8080/uploads/59/75/5975...e5-card.jpg 64 30
+//      java loadtest/UploadsBench.java <url> 64 30 "If-None-Match: \"...\""   (revalidation path)
+//      java loadtest/UploadsBench.java <url> 64 30 "Range: bytes=0-65535"        (partial content)
+//
+// Prints requests/sec, bytes/sec and latency percentiles; the first 3 seconds are warm-up and not counted.
+public class UploadsBench {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: UploadsBench <url> [concurrency] [seconds] [header...]");
+            System.exit(2);
+        }
+        URI uri = URI.create(args[0]);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        String[] headers = args.length > 3 ? Arrays.copyOfRange(args, 3, args.length) : new String[0];
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).GET();
+        for (String header : headers) {
+            int colon = header.indexOf(':');
+            builder.header(header.substring(0, colon).trim(), header.substring(colon + 1).trim());
+        }
+        HttpRequest request = builder.build();
+
+        int maxSamples = 2_000_000;
+        long[] latencies = new long[maxSamples];
+        AtomicLong samples = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong[] statuses = new AtomicLong[600];
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = new AtomicLong();
+        }
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < concurrency; i++) {
+            workers.submit(() -> {
+                while (running.get()) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        long elapsed = System.nanoTime() - start;
+                        if (measuring.get()) {
+                            long index = samples.getAndIncrement();
+                            if (index < maxSamples) {
+                                latencies[(int) index] = elapsed;
+                            }
+                            bytes.addAndGet(response.body().length);
+                            statuses[response.statusCode()].incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        if (measuring.get()) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        Thread.sleep(3_000);
+        measuring.set(true);
+        long started = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        measuring.set(false);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        running.set(false);
+        workers.shutdown();
+        workers.awaitTermination(30, java.util.concurrent.TimeUnit.SECONDS);
+
+        int count = (int) Math.min(samples.get(), maxSamples);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("%s  concurrency=%d  duration=%.1fs%n", uri, concurrency, elapsedSeconds);
+        System.out.printf("requests/sec: %.0f   MB/sec: %.1f   errors: %d%n",
+                samples.get() / elapsedSeconds, bytes.get() / elapsedSeconds / 1e6, errors.get());
+        for (int status = 0; status < statuses.length; status++) {
+            if (statuses[status].get() > 0) {
+                System.out.printf("  HTTP %d: %d%n", status, statuses[status].get());
+            }
+        }
+        if (count > 0) {
+            System.out.printf("latency ms  p50=%.2f  p90=%.2f  p99=%.2f  max=%.2f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    sorted[count - 1] / 1e6);
+        }
+        System.exit(0);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,230 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reconnect storm against the STOMP endpoint, as after a backend restart. No dependencies, run it straight
+// from source:
+//
+//   java loadtest/WsConnectStormBench.java <base-url> <tokens-file> [clients=1000] [max-attempts=8]
+//
+// e.g. java loadtest/WsConnectStormBench.java http://localhost:8080 /tmp/tokens.txt 2000
+//
+// All `clients` open a SockJS websocket (/ws/{server}/{session}/websocket) at the same moment and send a
+// STOMP CONNECT carrying one of the access tokens from <tokens-file> (one per line, used round robin).
+// A CONNECT answered with an ERROR frame (e.g. rate limited) is retried like the frontend does: exponential
+// backoff with full jitter, 1s doubling up to 30s. Connections stay open until every client is done.
+// Prints latency percentiles of single CONNECT attempts and of the time each client took to get
+// connected (retries included), plus how many attempts the clients needed.
+public class WsConnectStormBench {
+
+    private static final long BASE_DELAY_MS = 1_000;
+    private static final long MAX_DELAY_MS = 30_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: WsConnectStormBench <base-url> <tokens-file> [clients] [max-attempts]");
+            System.exit(2);
+        }
+        String base = args[0].replaceAll("/+$", "").replaceFirst("^http", "ws");
+        List<String> tokens = Files.readAllLines(Path.of(args[1])).stream().map(String::trim)
+                .filter(line -> !line.isEmpty()).toList();
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int maxAttempts = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        if (tokens.isEmpty()) {
+            System.err.println("no tokens in " + args[1]);
+            System.exit(2);
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(8))
+                .build();
+
+        long[] attemptLatencies = new long[clients * maxAttempts];
+        AtomicInteger attemptSamples = new AtomicInteger();
+        long[] connectTimes = new long[clients];
+        AtomicInteger connected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong rejectedAttempts = new AtomicLong();
+        AtomicLong brokenAttempts = new AtomicLong();
+        Map<Integer, AtomicInteger> attemptsNeeded = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> errorMessages = new ConcurrentHashMap<>();
+        List<WebSocket> open = new ArrayList<>();
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < clients; i++) {
+            String token = tokens.get(i % tokens.size());
+            workers.submit(() -> {
+                try {
+                    start.await();
+                    long began = System.nanoTime();
+                    for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                        long attemptStart = System.nanoTime();
+                        Attempt result = connect(client, base, token);
+                        if (result.socket != null) {
+                            attemptLatencies[attemptSamples.getAndIncrement()] = System.nanoTime() - attemptStart;
+                            connectTimes[connected.getAndIncrement()] = System.nanoTime() - began;
+                            attemptsNeeded.computeIfAbsent(attempt, k -> new AtomicInteger()).incrementAndGet();
+                            synchronized (open) {
+                                open.add(result.socket);
+                            }
+                            return null;
+                        }
+                        if (result.error != null) {
+                            rejectedAttempts.incrementAndGet();
+                            errorMessages.computeIfAbsent(result.error, k -> new AtomicInteger()).incrementAndGet();
+                        } else {
+                            brokenAttempts.incrementAndGet();
+                        }
+                        long cap = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << Math.min(attempt - 1, 20));
+                        Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+                    }
+                    failed.incrementAndGet();
+                    return null;
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long stormStarted = System.nanoTime();
+        start.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - stormStarted) / 1e9;
+
+        System.out.printf("%s  clients=%d  tokens=%d  max-attempts=%d%n", base, clients, tokens.size(), maxAttempts);
+        System.out.printf("connected: %d  gave up: %d  in %.1fs%n", connected.get(), failed.get(), seconds);
+        System.out.printf("attempts turned away with ERROR: %d  failed otherwise: %d%n",
+                rejectedAttempts.get(), brokenAttempts.get());
+        new TreeMap<>(errorMessages).forEach((message, count) -> System.out.printf("  %dx %s%n", count.get(), message));
+        new TreeMap<>(attemptsNeeded).forEach((attempts, count) ->
+                System.out.printf("  connected on attempt %d: %d%n", attempts, count.get()));
+        report("CONNECT attempt", attemptLatencies, attemptSamples.get());
+        report("time to connected", connectTimes, connected.get());
+
+        synchronized (open) {
+            for (WebSocket socket : open) {
+                socket.abort();
+            }
+        }
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+        System.exit(0);
+    }
+
+    private record Attempt(WebSocket socket, String error) {
+    }
+
+    // Opens one SockJS websocket and sends CONNECT; the socket once CONNECTED, otherwise the ERROR
+    // frame's message, or neither if the connection broke
+    private static Attempt connect(HttpClient client, String base, String token) {
+        CompletableFuture<String> reply = new CompletableFuture<>();
+        String connectFrame = "CONNECT\naccept-version:1.1,1.2\nheart-beat:0,0\nAuthorization:Bearer " + token + "\n\n\u0000";
+        WebSocket.Listener listener = new WebSocket.Listener() {
+            private final StringBuilder buffer = new StringBuilder();
+
+            @Override
+            public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+                buffer.append(data);
+                if (last) {
+                    String frame = buffer.toString();
+                    buffer.setLength(0);
+                    if (frame.equals("o")) {
+                        socket.sendText("[" + json(connectFrame) + "]", true);
+                    } else if (frame.startsWith("a[")) {
+                        reply.complete(frame);
+                    } else if (frame.startsWith("c[")) {
+                        reply.complete("");
+                    }
+                }
+                socket.request(1);
+                return null;
+            }
+
+            @Override
+            public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+                reply.complete("");
+                return null;
+            }
+
+            @Override
+            public void onError(WebSocket socket, Throwable error) {
+                reply.complete("");
+            }
+        };
+
+        WebSocket socket = null;
+        try {
+            String path = String.format("/ws/%03d/%s/websocket", ThreadLocalRandom.current().nextInt(1000),
+                    Long.toHexString(ThreadLocalRandom.current().nextLong()));
+            socket = client.newWebSocketBuilder().buildAsync(URI.create(base + path), listener).get(30, TimeUnit.SECONDS);
+            String frame = reply.get(30, TimeUnit.SECONDS);
+            if (frame.contains("CONNECTED")) {
+                return new Attempt(socket, null);
+            }
+            socket.abort();
+            int message = frame.indexOf("message:");
+            if (frame.contains("ERROR") && message >= 0) {
+                int end = frame.indexOf("\\n", message);
+                return new Attempt(null, frame.substring(message + 8, end < 0 ? frame.length() : end));
+            }
+            return new Attempt(null, frame.contains("ERROR") ? "ERROR" : null);
+        } catch (Exception e) {
+            if (socket != null) {
+                socket.abort();
+            }
+            return new Attempt(null, null);
+        }
+    }
+
+    private static String json(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    private static void report(String name, long[] latencies, int count) {
+        if (count == 0) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("%-17s ms  p50=%.1f  p90=%.1f  p99=%.1f  max=%.1f%n", name,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99), sorted[count - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,75 @@
+package com.faite_assessment.backend.Config;
+
+import com.faite_assessment.backend.Storage.BlobStore;
+import com.faite_assessment.backend.Storage.LocalBlobStore;
+import com.faite_assessment.backend.Storage.S3BlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.checksums.ResponseChecksumValidation;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+// uploads.store=local (default) keeps files under uploads/; uploads.store=s3 puts them in a bucket
+// so several backend nodes can share them
+@Configuration
+public class BlobStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "uploads.store", havingValue = "local", matchIfMissing = true)
+    public BlobStore localBlobStore(@Value("${uploads.local.root:uploads}") String root) {
+        return new LocalBlobStore(Paths.get(root));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "uploads.store", havingValue = "s3")
+    public BlobStore s3BlobStore(@Value("${uploads.s3.bucket}") String bucket,
+                                 @Value("${uploads.s3.region:us-east-1}") String region,
+                                 @Value("${uploads.s3.endpoint:}") String endpoint,
+                                 @Value("${uploads.s3.path-style:false}") boolean pathStyle,
+                                 @Value("${uploads.s3.access-key:}") String accessKey,
+                                 @Value("${uploads.s3.secret-key:}") String secretKey,
+                                 @Value("${uploads.s3.prefix:}") String prefix,
+                                 @Value("${uploads.s3.multipart-threshold:16MB}") DataSize multipartThreshold,
+                                 @Value("${uploads.s3.part-size:8MB}") DataSize partSize,
+                                 @Value("${uploads.s3.upload-parallelism:4}") int parallelism,
+                                 @Value("${uploads.s3.presign-checksum:true}") boolean presignChecksum) {
+        // Without explicit keys the usual AWS chain applies (env vars, profile, instance role)
+        AwsCredentialsProvider credentials = accessKey.isEmpty()
+                ? DefaultCredentialsProvider.builder().build()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        S3Configuration s3Configuration = S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build();
+
+        S3ClientBuilder client = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration)
+                // Checksums only where S3 demands them; not every S3-compatible store accepts the newer trailers
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .responseChecksumValidation(ResponseChecksumValidation.WHEN_REQUIRED);
+        S3Presigner.Builder presigner = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        if (!endpoint.isEmpty()) {
+            client.endpointOverride(URI.create(endpoint));
+            presigner.endpointOverride(URI.create(endpoint));
+        }
+
+        return new S3BlobStore(client.build(), presigner.build(), bucket, prefix,
+                multipartThreshold.toBytes(), partSize.toBytes(), parallelism, presignChecksum);
+    }
+}
@@ -4,15 +4,20 @@ import com.faite_assessment.backend.Security.JwtFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
@@ -23,6 +28,13 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    // Uploaded images are public and served by UploadServlet; skipping the chain entirely saves
+    // building a security context for every thumbnail in a product grid
+    @Bean
+    public WebSecurityCustomizer ignoreUploads() {
+        return web -> web.ignoring().requestMatchers("/uploads/**");
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         // Inside your filterChain method
@@ -37,11 +49,17 @@ public class SecurityConfig {
                     return corsConfig;
                 }))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/auth/**", "/uploads/**").permitAll()
+                        .requestMatchers("/api/auth/**").permitAll()
+                        // Lets 4xx/5xx statuses from ResponseStatusException reach the client instead of a 403
+                        .requestMatchers("/error").permitAll()
                         .requestMatchers("/ws/**").permitAll()
                         .requestMatchers("/api/products/**").authenticated()
                         .anyRequest().authenticated()
                 )
+                // No or expired token: 401, which the frontend answers with a refresh. A 403 means the
+                // token is fine but the role is not, and refreshing would not change that.
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
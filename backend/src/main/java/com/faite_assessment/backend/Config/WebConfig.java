@@ -1,15 +1,45 @@
 package com.faite_assessment.backend.Config;
 
+import com.faite_assessment.backend.Controllers.UploadServlet;
+import com.faite_assessment.backend.Services.UploadStorage;
+import com.faite_assessment.backend.Storage.BlobStore;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Open-session-in-view as Spring Boot would register it (spring.jpa.open-in-view is off), minus the
+    // password endpoints: those wait for the BCrypt pool, and holding a pooled DB connection while
+    // waiting let a login storm take every connection and stall unrelated requests. Sending a message
+    // is left out for the same reason: with write-behind it waits for the writer, which needs a connection.
+    // So is the catalog export, whose batches each take and return a connection: with a session open
+    // around it, the first batch's connection would stay checked out until a slow download finished.
     @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:uploads/");
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor openInView = new OpenEntityManagerInViewInterceptor();
+        openInView.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(openInView)
+                .excludePathPatterns("/api/auth/**", "/api/user/change-password", "/api/messages/send",
+                        "/api/admin/products/export");
+    }
+
+    // Uploaded images bypass the DispatcherServlet; the more specific mapping wins over "/"
+    @Bean
+    public ServletRegistrationBean<UploadServlet> uploadServlet(UploadStorage uploadStorage, BlobStore blobStore) {
+        ServletRegistrationBean<UploadServlet> registration =
+                new ServletRegistrationBean<>(new UploadServlet(uploadStorage, blobStore), "/uploads/*");
+        registration.setName("uploadServlet");
+        registration.setLoadOnStartup(1);
+        return registration;
     }
 }
@@ -1,7 +1,6 @@
 package com.faite_assessment.backend.Config;
 
-import com.faite_assessment.backend.Security.JwtUtil;
-import com.faite_assessment.backend.Services.CustomUserDetailsService;
+import com.faite_assessment.backend.Security.StompConnectAuthenticator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
@@ -15,8 +14,6 @@ import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -27,12 +24,13 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @Order(Ordered.HIGHEST_PRECEDENCE + 99)
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
-    private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService userDetailsService;
+    private final StompConnectAuthenticator connectAuthenticator;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/user", "/topic");
+        // convertAndSendToUser(user, "/queue/x") ends up on /queue/x-user{session}, so the broker owns /queue;
+        // it must not own /user as well, or it keeps the untranslated SUBSCRIBE and nothing is ever delivered
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
@@ -52,27 +50,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
                 StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
 
+                // Verified claims only, no user lookup; throws (ERROR frame to the client) when rate limited
                 if (StompCommand.CONNECT.equals(accessor.getCommand())) {
-                    String authHeader = accessor.getFirstNativeHeader("Authorization");
-
-                    if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                        String token = authHeader.substring(7);
-                        try {
-                            String email = jwtUtil.extractEmail(token);
-                            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-
-                            // --- FIX IS HERE ---
-                            // Your JwtUtil only requires the token, not the userDetails
-                            if (jwtUtil.validateToken(token)) {
-
-                                UsernamePasswordAuthenticationToken authToken =
-                                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-
-                                accessor.setUser(authToken);
-                            }
-                        } catch (Exception e) {
-                            System.out.println("WebSocket Auth Error: " + e.getMessage());
-                        }
+                    UsernamePasswordAuthenticationToken authToken =
+                            connectAuthenticator.authenticate(accessor.getFirstNativeHeader("Authorization"));
+                    if (authToken != null) {
+                        accessor.setUser(authToken);
                     }
                 }
                 return message;
@@ -1,59 +1,69 @@
 package com.faite_assessment.backend.Controllers;
 
-import com.faite_assessment.backend.Entities.Product;
+import com.faite_assessment.backend.Dtos.ProductResponseDTO;
 import com.faite_assessment.backend.Entities.User;
 import com.faite_assessment.backend.Security.JwtUtil;
+import com.faite_assessment.backend.Security.LoginThrottle;
+import com.faite_assessment.backend.Security.StompConnectAuthenticator;
+import com.faite_assessment.backend.Services.ConversationService;
+import com.faite_assessment.backend.Services.MessageWriteBehind;
+import com.faite_assessment.backend.Services.MultipartUploads;
+import com.faite_assessment.backend.Services.PasswordHashing;
+import com.faite_assessment.backend.Services.ProductExportService;
 import com.faite_assessment.backend.Services.ProductService;
+import com.faite_assessment.backend.Services.UnreadCounters;
+import com.faite_assessment.backend.Services.UploadSweeper;
 import com.faite_assessment.backend.Services.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+// Admin only: checked against the role in the verified token, no user lookup per request
 @RestController
 @RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
 @RequiredArgsConstructor
+@Slf4j
 public class AdminController {
 
     private final UserService userService;
     private final ProductService productService; // Inject ProductService
+    private final ProductExportService productExportService;
     private final JwtUtil jwtUtil;
-
-    // Helper method to validate Admin access
-    private void ensureAdmin(String token) {
-        if (token == null || token.isBlank()) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No token provided");
-        }
-        String email;
-        try {
-            email = jwtUtil.extractEmail(token);
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token");
-        }
-        User user = userService.findByEmail(email)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
-        if (!"ADMIN".equalsIgnoreCase(user.getRole().name())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied: Admin only");
-        }
-    }
+    private final MultipartUploads multipartUploads;
+    private final UploadSweeper uploadSweeper;
+    private final PasswordHashing passwordHashing;
+    private final LoginThrottle loginThrottle;
+    private final StompConnectAuthenticator stompConnectAuthenticator;
+    private final ConversationService conversationService;
+    private final UnreadCounters unreadCounters;
+    private final MessageWriteBehind messageWriteBehind;
 
     // --- EXISTING USER ENDPOINTS ---
 
     @GetMapping("/users")
-    public List<User> getAllUsers(@RequestHeader("Authorization") String authHeader) {
-        ensureAdmin(authHeader.substring(7));
+    public List<User> getAllUsers() {
         return userService.getAllUsers();
     }
 
     @DeleteMapping("/users/{id}")
-    public String deleteUser(@RequestHeader("Authorization") String authHeader, @PathVariable Long id) {
-        ensureAdmin(authHeader.substring(7));
+    public String deleteUser(@PathVariable Long id) {
         userService.deleteUser(id);
         return "User deleted successfully";
     }
@@ -61,29 +71,123 @@ public class AdminController {
     // --- NEW PRODUCT ENDPOINTS ---
 
     @GetMapping("/products")
-    public List<Product> getAllProducts(@RequestHeader("Authorization") String authHeader) {
-        ensureAdmin(authHeader.substring(7));
+    public List<ProductResponseDTO> getAllProducts() {
         return productService.getAllProducts();
     }
 
+    // Whole catalog as NDJSON (default) or CSV, optionally gzipped. Rows are written batch by batch,
+    // so memory use stays flat however large the table grows.
+    @GetMapping("/products/export")
+    public void exportProducts(@RequestParam(defaultValue = "ndjson") String format,
+                               @RequestParam(defaultValue = "false") boolean gzip,
+                               HttpServletResponse response) throws IOException {
+        ProductExportService.ExportFormat exportFormat;
+        try {
+            exportFormat = ProductExportService.ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+
+        String fileName = "products-" + LocalDate.now() + "." + exportFormat.extension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.contentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName).build().toString());
+
+        // syncFlush so every batch reaches the client instead of waiting in the deflater
+        try (OutputStream out = gzip
+                ? new GZIPOutputStream(response.getOutputStream(), 8192, true)
+                : response.getOutputStream()) {
+            long count = productExportService.export(exportFormat, out);
+            log.info("Exported {} products as {}{}", count, exportFormat, gzip ? " (gzip)" : "");
+        }
+    }
+
     @DeleteMapping("/products/{id}")
-    public String deleteProduct(@RequestHeader("Authorization") String authHeader, @PathVariable Long id) {
-        ensureAdmin(authHeader.substring(7));
+    public String deleteProduct(@PathVariable Long id) {
         productService.adminDeleteProduct(id);
         return "Product deleted successfully by Admin";
     }
 
+    // Product detail cache counters, for sizing products.detail-cache.*
+    @GetMapping("/product-cache/stats")
+    public Map<String, Object> getProductCacheStats() {
+        return productService.getDetailCacheStats();
+    }
+
+    // Verified JWT claims cache counters, for sizing security.jwt.claims-cache.max-size
+    @GetMapping("/auth-cache/stats")
+    public Map<String, Object> getAuthCacheStats() {
+        return jwtUtil.claimsCacheStats();
+    }
+
+    // Password hashing pool and login throttle counters, for sizing security.password-hashing.* / login-throttle.*
+    @GetMapping("/login-protection/stats")
+    public Map<String, Object> getLoginProtectionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hashing", passwordHashing.stats());
+        stats.put("throttle", loginThrottle.stats());
+        return stats;
+    }
+
+    // WebSocket CONNECT counters, for sizing security.ws-connect.*
+    @GetMapping("/ws-connect/stats")
+    public Map<String, Object> getWsConnectStats() {
+        return stompConnectAuthenticator.stats();
+    }
+
+    // Upload limiter counters, for sizing uploads.max-concurrent / max-queued
+    @GetMapping("/uploads/stats")
+    public Map<String, Object> getUploadStats() {
+        return multipartUploads.stats();
+    }
+
+    // Progress or outcome of the latest orphaned-upload sweep, including bytes reclaimed
+    @GetMapping("/uploads/sweep")
+    public Map<String, Object> getUploadSweep() {
+        return uploadSweeper.lastReport();
+    }
+
+    // Starts a sweep now instead of waiting for the schedule; 409 if one is already running
+    @PostMapping("/uploads/sweep")
+    public ResponseEntity<String> startUploadSweep() {
+        if (!uploadSweeper.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A sweep is already running");
+        }
+        return ResponseEntity.accepted().body("Sweep started");
+    }
+
+    // Recomputes the inbox read model (previews, unread counts) from the messages table
+    @PostMapping("/conversations/rebuild")
+    public Map<String, Object> rebuildConversations() {
+        long started = System.currentTimeMillis();
+        int rows = conversationService.rebuild();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("affectedRows", rows);
+        result.put("durationMs", System.currentTimeMillis() - started);
+        return result;
+    }
+
+    // In-memory unread counters: how many users are tracked, seeds from the database, pushes sent
+    @GetMapping("/unread-counters/stats")
+    public Map<String, Object> getUnreadCounterStats() {
+        return unreadCounters.stats();
+    }
+
+    // Chat message write-behind: queue depth, batch sizes, commit times, sends turned away
+    @GetMapping("/message-writer/stats")
+    public Map<String, Object> getMessageWriterStats() {
+        return messageWriteBehind.stats();
+    }
+
     // --- NEW DASHBOARD STATS ENDPOINT ---
 
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Object>> getDashboardStats(@RequestHeader("Authorization") String authHeader) {
-        ensureAdmin(authHeader.substring(7));
-
+    public ResponseEntity<Map<String, Object>> getDashboardStats() {
         Map<String, Object> stats = new HashMap<>();
 
         // 1. Total Counts
-        long totalUsers = userService.getAllUsers().size();
-        long totalProducts = productService.getAllProducts().size();
+        long totalUsers = userService.countUsers();
+        long totalProducts = productService.countProducts();
 
         // 2. Products by Category (For Pie Chart)
         // Returns list like: [["ELECTRONICS", 5], ["TRAVEL", 2]]
@@ -3,19 +3,28 @@ package com.faite_assessment.backend.Controllers;
 import com.faite_assessment.backend.Entities.User;
 import com.faite_assessment.backend.Models.Role;
 import com.faite_assessment.backend.Security.JwtUtil;
+import com.faite_assessment.backend.Security.LoginThrottle;
+import com.faite_assessment.backend.Security.TokenRevocations;
 import com.faite_assessment.backend.Services.ActivityLogService;
 import com.faite_assessment.backend.Services.EmailService; // Import this
+import com.faite_assessment.backend.Services.PasswordHashing;
 import com.faite_assessment.backend.Services.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Map;
 import java.util.Random;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -24,18 +33,21 @@ public class AuthController {
 
     private final UserService userService;
     private final ActivityLogService activityLogService;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashing passwordHashing;
+    private final LoginThrottle loginThrottle;
     private final JwtUtil jwtUtil;
     private final EmailService emailService;
+    private final TokenRevocations tokenRevocations;
     @PostMapping("/register")
-    public String register(@RequestBody User user) {
+    public String register(@RequestBody User user, HttpServletRequest request) {
+        loginThrottle.check(request, null);
 
         if (userService.emailExists(user.getEmail())) {
             return "Email already exists";
         }
 
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashing.encode(user.getPassword()));
         user.setRole(Role.USER);
 
         User saved = userService.saveUser(user);
@@ -47,33 +59,106 @@ public class AuthController {
 
 
     @PostMapping("/login")
-    public Map<String, String> login(@RequestBody Map<String, String> loginData) {
+    public Map<String, String> login(@RequestBody Map<String, String> loginData, HttpServletRequest request) {
 
         String email = loginData.get("email");
         String password = loginData.get("password");
+        loginThrottle.check(request, email);
 
         User user = userService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Invalid email or password"));
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHashing.matches(password, user.getPassword())) {
             throw new RuntimeException("Invalid email or password");
         }
 
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
+        // Each login starts a new token family; refreshing keeps it, logging out revokes it
+        String familyId = UUID.randomUUID().toString();
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole().name(), familyId);
+        String refreshToken = jwtUtil.generateRefreshToken(user.getId(), user.getEmail(), user.getRole().name(), familyId);
 
         activityLogService.log(user, "User logged in");
 
         return Map.of(
                 "token", token,
+                "refreshToken", refreshToken,
                 "role", user.getRole().name(),
                 "name", user.getName()
         );
     }
 
+    // Swaps a refresh token for a new access token and a new refresh token. Checks the signature, the
+    // deny-list and the user's current role, never the password hash. Each refresh token works once;
+    // showing a used one again means it was copied, so the whole family is revoked and both holders
+    // must log in.
+    @PostMapping("/refresh")
+    public Map<String, String> refresh(@RequestBody Map<String, String> request) {
+        Claims claims = parseRefreshToken(request.get("refreshToken"));
+        String familyId = claims.get(JwtUtil.FAMILY_CLAIM, String.class);
+        Instant expiresAt = claims.getExpiration().toInstant();
+
+        if (familyId == null || claims.getId() == null || tokenRevocations.isRevoked(familyId)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Session ended, please log in again");
+        }
+        if (!tokenRevocations.revoke(claims.getId(), expiresAt)) {
+            tokenRevocations.revoke(familyId, Instant.now().plus(jwtUtil.getRefreshTtl()));
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Session ended, please log in again");
+        }
+
+        // One primary-key read, so a changed role or a deleted account takes effect within one access token's life
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        User user = (userId != null ? userService.findById(userId) : userService.findByEmail(claims.getSubject()))
+                .orElseThrow(() -> {
+                    tokenRevocations.revoke(familyId, Instant.now().plus(jwtUtil.getRefreshTtl()));
+                    return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Session ended, please log in again");
+                });
+        // A family started before the last password reset or change
+        if (user.getTokensValidAfter() != null && claims.getIssuedAt() != null
+                && claims.getIssuedAt().toInstant().isBefore(user.getTokensValidAfter().atZone(ZoneId.systemDefault()).toInstant())) {
+            tokenRevocations.revoke(familyId, Instant.now().plus(jwtUtil.getRefreshTtl()));
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Session ended, please log in again");
+        }
+        String role = user.getRole().name();
+        return Map.of(
+                "token", jwtUtil.generateToken(user.getId(), user.getEmail(), role, familyId),
+                "refreshToken", jwtUtil.generateRefreshToken(user.getId(), user.getEmail(), role, familyId),
+                "role", role
+        );
+    }
+
+    // Ends the session the refresh token belongs to, including its outstanding access tokens
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody Map<String, String> request) {
+        try {
+            Claims claims = parseRefreshToken(request.get("refreshToken"));
+            String familyId = claims.get(JwtUtil.FAMILY_CLAIM, String.class);
+            if (familyId != null) {
+                tokenRevocations.revoke(familyId, Instant.now().plus(jwtUtil.getRefreshTtl()));
+            }
+        } catch (ResponseStatusException e) {
+            // Expired or unreadable: nothing left to revoke
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private Claims parseRefreshToken(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseClaims(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+        if (!JwtUtil.REFRESH_TYPE.equals(claims.get(JwtUtil.TYPE_CLAIM, String.class))) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+        }
+        return claims;
+    }
+
     // --- NEW: FORGOT PASSWORD (Generate OTP) ---
     @PostMapping("/forgot-password")
-    public ResponseEntity<String> forgotPassword(@RequestBody Map<String, String> request) {
+    public ResponseEntity<String> forgotPassword(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
         String email = request.get("email");
+        loginThrottle.check(httpRequest, email);
         User user = userService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -91,8 +176,10 @@ public class AuthController {
 
     // --- NEW: RESET PASSWORD (Verify OTP & Update Password) ---
     @PostMapping("/reset-password")
-    public ResponseEntity<String> resetPassword(@RequestBody Map<String, String> request) {
+    public ResponseEntity<String> resetPassword(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
         String email = request.get("email");
+        // Also what stops the 6 digit OTP from being brute-forced
+        loginThrottle.check(httpRequest, email);
         String otp = request.get("otp");
         String newPassword = request.get("newPassword");
 
@@ -109,8 +196,10 @@ public class AuthController {
         }
 
         // Update password
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashing.encode(newPassword));
         user.setOtp(null); // Clear OTP after use
+        // Whoever had the old password may hold a refresh token too
+        userService.endSessions(user);
         userService.saveUser(user);
 
         activityLogService.log(user, "Password reset successfully");
@@ -1,19 +1,22 @@
 package com.faite_assessment.backend.Controllers;
 
+import com.faite_assessment.backend.Dtos.CursorPage;
 import com.faite_assessment.backend.Entities.Message;
-import com.faite_assessment.backend.Entities.User;
+import com.faite_assessment.backend.Security.AuthenticatedUser;
 import com.faite_assessment.backend.Services.MessageService;
+import com.faite_assessment.backend.Services.MessageWriteBehind;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
-import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
@@ -22,6 +25,14 @@ public class MessageController {
     private final MessageService messageService;
     private final SimpMessagingTemplate messagingTemplate;
 
+    // Legacy whole-history conversation response, kept while clients migrate to cursor pages
+    @Value("${messages.conversation.unpaged-enabled:true}")
+    private boolean unpagedConversationEnabled;
+
+    // Legacy whole-inbox response, kept while clients migrate to cursor pages
+    @Value("${messages.inbox.unpaged-enabled:true}")
+    private boolean unpagedInboxEnabled;
+
     @Data
     public static class MessageRequest {
         private Long receiverId;
@@ -34,6 +45,24 @@ public class MessageController {
     public void processMessage(@Payload MessageRequest request, Principal principal) {
         String senderEmail = principal.getName();
 
+        if (messageService.isWriteBehind()) {
+            MessageWriteBehind.Queued queued = messageService.queueMessage(
+                    senderEmail, request.getReceiverId(), null, request.getContent());
+            deliverQueued(queued);
+            // The sender's own copy is the ack, so it waits for the commit
+            queued.committed().whenComplete((committed, error) -> {
+                if (error == null) {
+                    messagingTemplate.convertAndSendToUser(senderEmail, "/queue/messages", committed);
+                } else {
+                    messagingTemplate.convertAndSendToUser(senderEmail, "/queue/errors", Map.of(
+                            "receiverId", request.getReceiverId(),
+                            "content", request.getContent(),
+                            "error", "Message could not be sent"));
+                }
+            });
+            return;
+        }
+
         Message savedMsg = messageService.sendMessage(
                 senderEmail,
                 request.getReceiverId(),
@@ -54,26 +83,54 @@ public class MessageController {
         );
     }
 
+    // Write-behind: the receiver gets the message before it is saved, and has it retracted (by id, on
+    // /queue/retracted) if it never is. Registered after the push, so a retraction can't overtake it.
+    private void deliverQueued(MessageWriteBehind.Queued queued) {
+        Message message = queued.message();
+        String receiverEmail = message.getReceiver().getEmail();
+        messagingTemplate.convertAndSendToUser(receiverEmail, "/queue/messages", message);
+        queued.committed().exceptionally(error -> {
+            messagingTemplate.convertAndSendToUser(receiverEmail, "/queue/retracted", message.getId());
+            return null;
+        });
+    }
+
     // REST API
 
+    // Asking for a cursor or a page size opts in to the paged shape: { items, nextCursor }, latest messages first
     @GetMapping("/api/messages/conversation/{userId}")
-    public ResponseEntity<List<Message>> getConversation(@PathVariable Long userId, Authentication authentication) {
-        return ResponseEntity.ok(messageService.getConversation(authentication.getName(), userId));
+    public ResponseEntity<?> getConversation(@PathVariable Long userId,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer size,
+                                             @AuthenticationPrincipal AuthenticatedUser user) {
+        if (cursor != null || size != null || !unpagedConversationEnabled) {
+            CursorPage<Message> page = messageService.getConversationPage(user.id(), userId, cursor, size);
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok(messageService.getConversation(user.id(), userId));
     }
 
+    // Conversations by latest message, from the conversations read model. A cursor or a page size opts in
+    // to the paged shape: { items, nextCursor }
     @GetMapping("/api/messages/inbox")
-    public ResponseEntity<List<User>> getInbox(Authentication authentication) {
-        return ResponseEntity.ok(messageService.getInbox(authentication.getName()));
+    public ResponseEntity<?> getInbox(@RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer size,
+                                      @AuthenticationPrincipal AuthenticatedUser user) {
+        if (cursor != null || size != null || !unpagedInboxEnabled) {
+            return ResponseEntity.ok(messageService.getInboxPage(user.id(), cursor, size));
+        }
+        return ResponseEntity.ok(messageService.getInbox(user.id()));
     }
 
     @GetMapping("/api/messages/unread-count")
-    public ResponseEntity<Long> getUnreadCount(Authentication authentication) {
-        return ResponseEntity.ok(messageService.getUnreadCount(authentication.getName()));
+    public ResponseEntity<Long> getUnreadCount(@AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(messageService.getUnreadCount(user.id()));
     }
 
     @PostMapping("/api/messages/mark-read/{senderId}")
-    public ResponseEntity<Void> markAsRead(@PathVariable Long senderId, Authentication authentication) {
-        messageService.markAsRead(senderId, authentication.getName());
+    public ResponseEntity<Void> markAsRead(@PathVariable Long senderId, @AuthenticationPrincipal AuthenticatedUser user) {
+        messageService.flushQueuedMessages();
+        messageService.markAsRead(senderId, user.id(), user.email());
         return ResponseEntity.ok().build();
     }
 
@@ -81,6 +138,14 @@ public class MessageController {
     public ResponseEntity<Message> sendMessageRest(@RequestBody MessageRequest request, Principal principal) {
         String senderEmail = principal.getName();
 
+        if (messageService.isWriteBehind()) {
+            MessageWriteBehind.Queued queued = messageService.queueMessage(
+                    senderEmail, request.getReceiverId(), request.getProductId(), request.getContent());
+            deliverQueued(queued);
+            // Answered only once the message is committed
+            return ResponseEntity.ok(messageService.awaitCommitted(queued));
+        }
+
         Message savedMsg = messageService.sendMessage(
                 senderEmail,
                 request.getReceiverId(),
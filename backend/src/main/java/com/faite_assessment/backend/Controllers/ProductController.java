@@ -1,20 +1,33 @@
 package com.faite_assessment.backend.Controllers;
 
+import com.faite_assessment.backend.Dtos.ProductFilter;
 import com.faite_assessment.backend.Dtos.ProductRequestDTO;
+import com.faite_assessment.backend.Dtos.ProductResponseDTO;
 import com.faite_assessment.backend.Entities.Product;
 import com.faite_assessment.backend.Models.Category;
+import com.faite_assessment.backend.Models.ProductCondition;
+import com.faite_assessment.backend.Models.ProductSort;
+import com.faite_assessment.backend.Services.ImageVariantService;
+import com.faite_assessment.backend.Services.MultipartUploads;
+import com.faite_assessment.backend.Services.UploadStorage;
 import com.faite_assessment.backend.Services.ProductService;
+import com.faite_assessment.backend.Services.TrendingService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
@@ -22,34 +35,64 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
-
+    private final TrendingService trendingService;
+    private final ImageVariantService imageVariantService;
+    private final MultipartUploads multipartUploads;
+    private final UploadStorage uploadStorage;
+    private final ObjectMapper objectMapper;
+
+    // Legacy unpaged browse response, kept while clients migrate to cursor pages
+    @Value("${products.browse.unpaged-enabled:true}")
+    private boolean unpagedBrowseEnabled;
+
+    // Parts: "dto" (JSON) and "image", or just "dto" with an imageUrl from a direct upload. The body is
+    // streamed by MultipartUploads, so the image goes straight into storage instead of being buffered first.
     @PostMapping(value = "/add", consumes = org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Product> addProduct(
-            @RequestPart("dto") ProductRequestDTO dto,
-            @RequestPart("image") MultipartFile image,
-            Authentication authentication) throws IOException {
+    public ResponseEntity<Product> addProduct(HttpServletRequest request, Authentication authentication) throws IOException {
 
         String email = authentication.getName();
 
-
-        Path uploadPath = Paths.get("uploads");
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        MultipartUploads.Form form = multipartUploads.read(request, Set.of("image"));
+        String adopted = null;
+        Product saved;
+        try {
+            if (form.field("dto") == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The 'dto' part is required");
+            }
+            ProductRequestDTO dto;
+            try {
+                dto = objectMapper.readValue(form.field("dto"), ProductRequestDTO.class);
+            } catch (JacksonException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid product data");
+            }
+            if (form.file("image") != null) {
+                dto.setImageUrl(form.file("image"));
+            } else if (dto.getImageUrl() != null) {
+                // Uploaded straight to storage through /api/uploads/presign
+                adopted = uploadStorage.adopt(dto.getImageUrl());
+            } else {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "An 'image' part or an uploaded imageUrl is required");
+            }
+            saved = productService.addProduct(dto, email);
+        } catch (RuntimeException e) {
+            multipartUploads.discard(form);
+            if (adopted != null) {
+                uploadStorage.release(adopted);
+            }
+            throw e;
         }
-
-        String fileName = System.currentTimeMillis() + "_" + image.getOriginalFilename();
-        Path path = uploadPath.resolve(fileName);
-        Files.copy(image.getInputStream(), path);
-
-        dto.setImageUrl("/uploads/" + fileName);
-
-        return ResponseEntity.ok(productService.addProduct(dto, email));
+        // Thumbnail / card / detail sizes are produced in the background; until then clients fall back to imageUrl
+        imageVariantService.submit(saved.getId(), saved.getImageUrl());
+        return ResponseEntity.ok(saved);
     }
 
     @GetMapping("/my-products")
-    public ResponseEntity<List<Product>> getMyProducts(Authentication authentication) {
+    public ResponseEntity<List<ProductResponseDTO>> getMyProducts(Authentication authentication, WebRequest request) {
         String email = authentication.getName();
-        return ResponseEntity.ok(productService.getMyProducts(email));
+        if (request.checkNotModified(productService.sellerListEtag(email))) {
+            return null;
+        }
+        return revalidated(productService.getMyProducts(email));
     }
     @PutMapping("/update/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody ProductRequestDTO dto, Authentication authentication) {
@@ -58,9 +101,25 @@ public class ProductController {
     }
 
     @GetMapping("/browse")
-    public ResponseEntity<List<Product>> browseProducts(
+    public ResponseEntity<?> browseProducts(
             @RequestParam(required = false) String search,
-            @RequestParam(required = false) String category) {
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(required = false) String condition,
+            @RequestParam(required = false) String price,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Long sellerId,
+            @RequestParam(required = false) String sort,
+            WebRequest request) {
+
+        // Every browse mode is derived from the catalog, so one counter validates them all
+        String etag = productService.catalogEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
 
         // Convert string category to Enum safely
         Category catEnum = null;
@@ -72,13 +131,70 @@ public class ProductController {
             }
         }
 
-        return ResponseEntity.ok(productService.getAllProducts(search, catEnum));
+        ProductCondition conditionEnum = null;
+        if (condition != null && !condition.isEmpty()) {
+            try {
+                conditionEnum = ProductCondition.valueOf(condition.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Unknown condition, same as an unknown category: ignore the filter
+            }
+        }
+
+        // facets=true: bitmap-filtered page plus category / condition / price bucket counts
+        if (facets) {
+            String priceBucket = price == null || price.isEmpty() ? null : price;
+            return revalidated(productService.browseWithFacets(search, catEnum, conditionEnum, priceBucket, cursor, size));
+        }
+
+        // newest, price_asc or price_desc; anything else falls back to the default order
+        ProductSort sortEnum = null;
+        if (sort != null && !sort.isEmpty()) {
+            try {
+                sortEnum = ProductSort.valueOf(sort.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Unknown sort: keep the default order
+            }
+        }
+
+        ProductFilter filter = new ProductFilter(search, catEnum, conditionEnum, minPrice, maxPrice, sellerId);
+        boolean extendedQuery = conditionEnum != null || minPrice != null || maxPrice != null
+                || sellerId != null || sortEnum != null;
+
+        // Asking for a cursor, a page size or any of the newer filters opts in to the paged shape: { items, nextCursor }
+        if (cursor != null || size != null || extendedQuery || !unpagedBrowseEnabled) {
+            return revalidated(productService.browseProducts(filter, sortEnum, cursor, size));
+        }
+
+        return revalidated(productService.getAllProducts(search, catEnum));
+    }
+
+    // Lets the browser keep the body but makes it ask (If-None-Match) before every reuse; without
+    // this Spring Security's default no-store means there is never a cached copy to revalidate
+    private static <T> ResponseEntity<T> revalidated(T body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(body);
+    }
+
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestTitles(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(productService.suggestTitles(prefix, limit));
     }
 
+    // "Trending now" rail, precomputed in memory every few seconds
+    @GetMapping("/trending")
+    public ResponseEntity<List<ProductResponseDTO>> getTrending(@RequestParam(defaultValue = "12") int limit) {
+        return ResponseEntity.ok(trendingService.getTrending(limit));
+    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<Product> getProductById(@PathVariable Long id, WebRequest request) {
+        Product product = productService.getProductById(id);
+        if (request.checkNotModified(productService.detailEtag(product))) {
+            return null;
+        }
+        return revalidated(product);
     }
 
 
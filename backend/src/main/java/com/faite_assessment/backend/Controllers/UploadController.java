@@ -0,0 +1,27 @@
+package com.faite_assessment.backend.Controllers;
+
+import com.faite_assessment.backend.Dtos.DirectUploadRequest;
+import com.faite_assessment.backend.Services.UploadStorage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/uploads")
+@RequiredArgsConstructor
+public class UploadController {
+
+    private final UploadStorage uploadStorage;
+
+    // Returns where to PUT the file and the headers to send. The returned url then goes in the product's
+    // imageUrl instead of an "image" part. 501 when the store only takes uploads through this server.
+    @PostMapping("/presign")
+    public ResponseEntity<UploadStorage.DirectUpload> presign(@RequestBody DirectUploadRequest request) {
+        return uploadStorage.presign(request.sha256(), request.contentType(), request.size())
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED,
+                        "Direct uploads are not available; send the image with the form"));
+    }
+}
@@ -0,0 +1,282 @@
+package com.faite_assessment.backend.Controllers;
+
+import com.faite_assessment.backend.Services.UploadStorage;
+import com.faite_assessment.backend.Storage.BlobStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Serves /uploads/** from the BlobStore, outside Spring MVC and the security chain (images are public).
+// Files named by their content digest never change, so they get a far-future immutable Cache-Control
+// and the digest as ETag; anything else is revalidated by size + mtime. Local files go out via Tomcat's
+// sendfile when the connector supports it, otherwise through FileChannel.transferTo; blobs in a remote
+// store are streamed through.
+@RequiredArgsConstructor
+public class UploadServlet extends HttpServlet {
+
+    // Tomcat request attributes that hand the body off to the connector's sendfile
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Small files are cheaper to copy than to register with the poller for sendfile
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=3600";
+
+    // <digest>.<ext> originals and <digest>-<variant>.jpg resized copies under the two shard directories
+    private static final Pattern CONTENT_ADDRESSED =
+            Pattern.compile("^/[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})(-[a-z]+)?\\.[a-z0-9]+$");
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    private final UploadStorage uploadStorage;
+    private final BlobStore blobStore;
+
+    // Headers are worked out once per file version and reused until the file's size or mtime changes
+    private final Cache<String, FileInfo> fileInfo = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    record FileInfo(long size, long lastModified, String etag, String contentType, String cacheControl) {
+    }
+
+    record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(request, response, true);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(request, response, false);
+    }
+
+    private void serve(HttpServletRequest request, HttpServletResponse response, boolean withBody) throws IOException {
+        String relative = request.getPathInfo();
+        // keyOf refuses dot segments, which covers the staging directory. Plain status codes rather
+        // than sendError throughout: an error dispatch would go through the full MVC stack.
+        String key = relative == null ? null : uploadStorage.keyOf("/uploads" + relative);
+        if (key == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Optional<Path> file = blobStore.localPath(key);
+        FileInfo info = describe(key, relative, file.isPresent());
+        if (info == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader("ETag", info.etag());
+        response.setDateHeader("Last-Modified", info.lastModified());
+        response.setHeader("Cache-Control", info.cacheControl());
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentType(info.contentType());
+
+        if (notModified(request, info)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // Only a single byte range is served as 206. Multi-range and malformed headers get the whole
+        // file, which RFC 9110 allows, so there is no multipart/byteranges writer to maintain.
+        ByteRange range = null;
+        String rangeHeader = request.getHeader("Range");
+        Matcher rangeMatcher = rangeHeader == null ? null : SINGLE_RANGE.matcher(rangeHeader.trim());
+        if (rangeMatcher != null && rangeMatcher.matches() && ifRangeMatches(request, info)) {
+            range = toRange(rangeMatcher.group(1), rangeMatcher.group(2), info.size());
+            if (range == null) {
+                response.setHeader("Content-Range", "bytes */" + info.size());
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        long start = 0;
+        long length = info.size();
+        if (range != null) {
+            start = range.start();
+            length = range.length();
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + range.start() + "-" + range.end() + "/" + info.size());
+        }
+        response.setContentLengthLong(length);
+        if (!withBody || length == 0) {
+            return;
+        }
+
+        if (file.isEmpty()) {
+            try (InputStream in = blobStore.open(key, start, length)) {
+                in.transferTo(response.getOutputStream());
+            } catch (NoSuchFileException e) {
+                // Deleted since its headers were cached
+                fileInfo.invalidate(key);
+                if (!response.isCommitted()) {
+                    response.reset();
+                    response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                }
+            }
+            return;
+        }
+
+        if (length >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // The connector writes the bytes straight from the page cache once this method returns
+            request.setAttribute(SENDFILE_FILENAME, file.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.get(), StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Returns null when there is no such blob
+    private FileInfo describe(String key, String relative, boolean local) throws IOException {
+        FileInfo cached = fileInfo.getIfPresent(key);
+        // A remote stat is a round trip, and content-addressed blobs never change, so those are trusted
+        // from the cache; local files are cheap to stat and always checked
+        if (cached != null && !local && cached.cacheControl().equals(IMMUTABLE)) {
+            return cached;
+        }
+
+        Optional<BlobStore.BlobInfo> blob = blobStore.stat(key);
+        if (blob.isEmpty()) {
+            fileInfo.invalidate(key);
+            return null;
+        }
+        long size = blob.get().size();
+        long lastModified = blob.get().lastModified();
+
+        if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+            return cached;
+        }
+
+        Matcher contentAddressed = CONTENT_ADDRESSED.matcher(relative);
+        String etag;
+        String cacheControl;
+        if (contentAddressed.matches()) {
+            String variant = contentAddressed.group(2) == null ? "" : contentAddressed.group(2);
+            etag = "\"" + contentAddressed.group(1) + variant + "\"";
+            cacheControl = IMMUTABLE;
+        } else {
+            etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+            cacheControl = REVALIDATE;
+        }
+
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        String contentType = CONTENT_TYPES.get(extension);
+        if (contentType == null) {
+            contentType = getServletContext().getMimeType(name);
+        }
+        if (contentType == null) {
+            contentType = "application/octet-stream";
+        }
+
+        FileInfo info = new FileInfo(size, lastModified, etag, contentType, cacheControl);
+        fileInfo.put(key, info);
+        return info;
+    }
+
+    static boolean notModified(HttpServletRequest request, FileInfo info) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(info.etag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, "If-Modified-Since");
+        // HTTP dates have whole-second precision
+        return ifModifiedSince != -1 && info.lastModified() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // A Range is only honoured if If-Range (when sent) still names the current version
+    static boolean ifRangeMatches(HttpServletRequest request, FileInfo info) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(info.etag());
+        }
+        long date = dateHeader(request, "If-Range");
+        return date != -1 && info.lastModified() / 1000 == date / 1000;
+    }
+
+    // Null when the range lies outside the file
+    static ByteRange toRange(String first, String last, long size) {
+        try {
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = last.isEmpty() ? 0 : Long.parseLong(last);
+                return suffix == 0 || size == 0 ? null : new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            return start >= size || end < start ? null : new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            // More digits than a long holds
+            return null;
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -1,20 +1,31 @@
 package com.faite_assessment.backend.Controllers;
 
+import com.faite_assessment.backend.Dtos.UserProfileDTO;
 import com.faite_assessment.backend.Entities.User;
+import com.faite_assessment.backend.Security.AuthenticatedUser;
 import com.faite_assessment.backend.Security.JwtUtil;
+import com.faite_assessment.backend.Security.LoginThrottle;
 import com.faite_assessment.backend.Services.ActivityLogService;
+import com.faite_assessment.backend.Services.MultipartUploads;
+import com.faite_assessment.backend.Services.PasswordHashing;
+import com.faite_assessment.backend.Services.UploadStorage;
 import com.faite_assessment.backend.Services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 
-import java.io.File;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/user")
@@ -22,80 +33,76 @@ import java.util.Map;
 public class UserController {
 
     private final UserService userService;
-    private final JwtUtil jwtUtil;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashing passwordHashing;
+    private final LoginThrottle loginThrottle;
     private final ActivityLogService activityLogService;
+    private final UploadStorage uploadStorage;
+    private final MultipartUploads multipartUploads;
+    private final JwtUtil jwtUtil;
 
 
     @GetMapping("/me")
-    public User getLoggedInUser(@RequestHeader("Authorization") String authHeader) {
-        String token = authHeader.substring(7);
-        String email = jwtUtil.extractEmail(token);
-
-        return userService.findByEmail(email)
+    public ResponseEntity<UserProfileDTO> getLoggedInUser(@AuthenticationPrincipal AuthenticatedUser principal,
+                                                          WebRequest request) {
+        User user = userService.findById(principal.id())
                 .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // Every write to the user row bumps its version; the id keeps tags distinct across accounts
+        if (request.checkNotModified("\"u" + user.getId() + "-" + user.getVersion() + "\"")) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(UserProfileDTO.from(user));
     }
 
 
+    // Parts: "name", optional "dateOfBirth" and optional "profilePicture", streamed by MultipartUploads
     @PutMapping("/update")
     public User updateProfile(
-            @RequestHeader(value = "Authorization", required = false) String authHeader,
-            @RequestPart("name") String name,
-            @RequestPart(value = "dateOfBirth", required = false) String dob,
-            @RequestPart(value = "profilePicture", required = false) MultipartFile file
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            HttpServletRequest request
     ) throws IOException {
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Missing or invalid Authorization header");
-        }
-
-        String token = authHeader.substring(7);
-        String email = jwtUtil.extractEmail(token);
-
-        User user = userService.findByEmail(email)
+        User user = userService.findById(principal.id())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-
-        if (name != null && !name.trim().isEmpty()) {
-            user.setName(name.trim());
-        }
-
-
-        if (dob != null && !dob.trim().isEmpty()) {
-            user.setDateOfBirth(LocalDate.parse(dob));
-        }
-
-
-        if (file != null && !file.isEmpty()) {
-
-
-            String contentType = file.getContentType();
-            if (contentType == null || !contentType.startsWith("image/")) {
-                throw new RuntimeException("Only image files are allowed");
+        MultipartUploads.Form form = multipartUploads.read(request, Set.of("profilePicture"));
+        String previousName = user.getName();
+        String previousPicture = user.getProfilePicture();
+        String replacedPicture = null;
+        User saved;
+        try {
+            String name = form.field("name");
+            if (name == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing 'name' part");
             }
-
-
-            String uploadBase = System.getProperty("user.dir");
-            String folder = uploadBase + File.separator + "uploads" + File.separator + "profile_pictures";
-
-            File dir = new File(folder);
-            if (!dir.exists()) {
-                dir.mkdirs();
+            if (!name.trim().isEmpty()) {
+                user.setName(name.trim());
             }
 
 
-            String original = file.getOriginalFilename().replaceAll("[^a-zA-Z0-9._-]", "");
-            String fileName = user.getId() + "_" + System.currentTimeMillis() + "_" + original;
-
-            String filePath = folder + File.separator + fileName;
+            String dob = form.field("dateOfBirth");
+            if (dob != null && !dob.trim().isEmpty()) {
+                user.setDateOfBirth(LocalDate.parse(dob));
+            }
 
-            file.transferTo(new File(filePath));
 
+            // Stored by content digest; the previous picture's reference is dropped once the new one is saved
+            String picture = form.file("profilePicture");
+            if (picture != null) {
+                replacedPicture = user.getProfilePicture();
+                user.setProfilePicture(picture);
+            }
 
-            user.setProfilePicture("/uploads/profile_pictures/" + fileName);
+            saved = userService.saveProfile(user, previousName, previousPicture);
+        } catch (RuntimeException e) {
+            multipartUploads.discard(form);
+            throw e;
+        }
+        if (replacedPicture != null) {
+            uploadStorage.release(replacedPicture);
         }
-
-        User saved = userService.saveUser(user);
         activityLogService.log(saved, "Profile updated");
 
         return saved;
@@ -104,30 +111,38 @@ public class UserController {
 
     //CHANGE PASSWORD
     @PutMapping("/change-password")
-    public String changePassword(
-            @RequestHeader("Authorization") String authHeader,
-            @RequestBody Map<String, String> body
+    public Map<String, String> changePassword(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @RequestBody Map<String, String> body,
+            HttpServletRequest request
     ) {
 
-        String token = authHeader.substring(7);
-        String email = jwtUtil.extractEmail(token);
+        loginThrottle.check(request, principal.email());
 
-        User user = userService.findByEmail(email)
+        User user = userService.findById(principal.id())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         String oldPw = body.get("oldPassword");
         String newPw = body.get("newPassword");
 
-        if (!passwordEncoder.matches(oldPw, user.getPassword())) {
+        if (!passwordHashing.matches(oldPw, user.getPassword())) {
             throw new RuntimeException("Old password is incorrect");
         }
 
-        user.setPassword(passwordEncoder.encode(newPw));
+        user.setPassword(passwordHashing.encode(newPw));
+        // Ends every other session at its next refresh; this one carries on with the tokens returned below
+        userService.endSessions(user);
         userService.saveUser(user);
 
         activityLogService.log(user, "Password changed");
 
-        return "Password updated successfully";
+        String familyId = UUID.randomUUID().toString();
+        String role = user.getRole().name();
+        return Map.of(
+                "message", "Password updated successfully",
+                "token", jwtUtil.generateToken(user.getId(), user.getEmail(), role, familyId),
+                "refreshToken", jwtUtil.generateRefreshToken(user.getId(), user.getEmail(), role, familyId)
+        );
     }
 
     @GetMapping("/dashboard-stats")
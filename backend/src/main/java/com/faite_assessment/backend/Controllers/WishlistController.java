@@ -1,6 +1,6 @@
 package com.faite_assessment.backend.Controllers;
 
-import com.faite_assessment.backend.Entities.Product;
+import com.faite_assessment.backend.Dtos.ProductResponseDTO;
 import com.faite_assessment.backend.Services.WishlistService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -25,7 +25,7 @@ public class WishlistController {
 
     // Endpoint to view all liked products
     @GetMapping("/my-wishlist")
-    public ResponseEntity<List<Product>> getMyWishlist(Authentication authentication) {
+    public ResponseEntity<List<ProductResponseDTO>> getMyWishlist(Authentication authentication) {
         return ResponseEntity.ok(wishlistService.getWishlist(authentication.getName()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.faite_assessment.backend.Dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+// One inbox entry, seen from the caller's side. id, name, email and profilePicture are the other user's,
+// so clients that treated inbox entries as users keep working. Selected directly by ConversationRepository.
+public record ConversationSummaryDTO(
+        @JsonIgnore Long conversationId,
+        Long id,
+        String name,
+        String email,
+        String profilePicture,
+        String lastMessage,
+        Long lastSenderId,
+        LocalDateTime lastMessageAt,
+        int unreadCount
+) {}
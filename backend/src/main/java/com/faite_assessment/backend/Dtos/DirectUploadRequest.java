@@ -0,0 +1,5 @@
+package com.faite_assessment.backend.Dtos;
+
+// What the client tells us about a file before uploading it straight to storage
+public record DirectUploadRequest(String sha256, String contentType, long size) {
+}
@@ -0,0 +1,12 @@
+package com.faite_assessment.backend.Dtos;
+
+import java.util.List;
+import java.util.Map;
+
+// A cursor page plus the total hit count and per-facet value counts, e.g. facets.category.ELECTRONICS
+public record FacetedPage<T>(
+        List<T> items,
+        String nextCursor,
+        long total,
+        Map<String, Map<String, Long>> facets
+) {}
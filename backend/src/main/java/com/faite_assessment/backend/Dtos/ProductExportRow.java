@@ -0,0 +1,24 @@
+package com.faite_assessment.backend.Dtos;
+
+import com.faite_assessment.backend.Models.Category;
+import com.faite_assessment.backend.Models.ProductCondition;
+import com.faite_assessment.backend.Models.SaleStatus;
+
+import java.time.LocalDateTime;
+
+// One line of the admin catalog export; flat so the same row maps to a JSON object and a CSV record
+public record ProductExportRow(
+        Long id,
+        String title,
+        String description,
+        Double price,
+        Category category,
+        ProductCondition condition,
+        SaleStatus saleStatus,
+        String imageUrl,
+        String phoneNum,
+        LocalDateTime createdAt,
+        Long sellerId,
+        String sellerName,
+        String sellerEmail
+) {}
@@ -0,0 +1,13 @@
+package com.faite_assessment.backend.Dtos;
+
+import com.faite_assessment.backend.Models.Category;
+import com.faite_assessment.backend.Models.ProductCondition;
+
+// Optional browse filters; a null field means "don't filter on it"
+public record ProductFilter(String keyword, Category category, ProductCondition condition,
+                            Double minPrice, Double maxPrice, Long sellerId) {
+
+    public static ProductFilter of(String keyword, Category category) {
+        return new ProductFilter(keyword, category, null, null, null, null);
+    }
+}
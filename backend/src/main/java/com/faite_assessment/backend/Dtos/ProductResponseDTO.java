@@ -1,19 +1,56 @@
 package com.faite_assessment.backend.Dtos;
 
+import com.faite_assessment.backend.Entities.Product;
+import com.faite_assessment.backend.Entities.User;
 import com.faite_assessment.backend.Models.Category;
 import com.faite_assessment.backend.Models.ProductCondition;
 import com.faite_assessment.backend.Models.SaleStatus;
-import lombok.Data;
 
-@Data
-public class ProductResponseDTO {
-    public Long id;
-    public String title;
-    public String description;
-    public Double price;
-    public Category category;
-    public ProductCondition condition;
-    public SaleStatus saleStatus;
-    public String phoneNum;
-    public String imageUrl;
+import java.time.LocalDateTime;
+
+// Listing row for product grids and tables. Selected directly by ProductRepository's
+// listing queries, so no Product / User entities are loaded for list endpoints.
+public record ProductResponseDTO(
+        Long id,
+        String title,
+        Double price,
+        Category category,
+        ProductCondition condition,
+        SaleStatus saleStatus,
+        String imageUrl,
+        String thumbnailUrl,
+        String cardUrl,
+        LocalDateTime createdAt,
+        SellerSummary seller
+) {
+
+    // Flat form used by JPQL constructor expressions, which cannot build the nested seller themselves
+    public ProductResponseDTO(Long id, String title, Double price, Category category, ProductCondition condition,
+                              SaleStatus saleStatus, String imageUrl, String thumbnailUrl, String cardUrl,
+                              LocalDateTime createdAt, Long sellerId, String sellerName, String sellerProfilePicture) {
+        this(id, title, price, category, condition, saleStatus, imageUrl, thumbnailUrl, cardUrl, createdAt,
+                sellerId == null ? null : new SellerSummary(sellerId, sellerName, sellerProfilePicture));
+    }
+
+    public ProductResponseDTO withSeller(SellerSummary seller) {
+        return new ProductResponseDTO(id, title, price, category, condition, saleStatus, imageUrl, thumbnailUrl,
+                cardUrl, createdAt, seller);
+    }
+
+    public static ProductResponseDTO from(Product product) {
+        User user = product.getUser();
+        return new ProductResponseDTO(
+                product.getId(),
+                product.getTitle(),
+                product.getPrice(),
+                product.getCategory(),
+                product.getCondition(),
+                product.getSaleStatus(),
+                product.getImageUrl(),
+                product.getThumbnailUrl(),
+                product.getCardUrl(),
+                product.getCreatedAt(),
+                user == null ? null : new SellerSummary(user.getId(), user.getName(), user.getProfilePicture())
+        );
+    }
 }
@@ -0,0 +1,8 @@
+package com.faite_assessment.backend.Dtos;
+
+// The few seller fields a product card needs, instead of the whole User entity
+public record SellerSummary(
+        Long id,
+        String name,
+        String profilePicture
+) {}
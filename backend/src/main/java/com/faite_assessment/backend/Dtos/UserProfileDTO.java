@@ -0,0 +1,25 @@
+package com.faite_assessment.backend.Dtos;
+
+import com.faite_assessment.backend.Entities.User;
+import com.faite_assessment.backend.Models.Role;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// What /api/user/me returns: the user's own profile fields, without credentials, OTP state or the
+// activity log, so the payload only changes when the user row itself does (see User.version)
+public record UserProfileDTO(
+        Long id,
+        String name,
+        String email,
+        Role role,
+        String profilePicture,
+        LocalDate dateOfBirth,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+    public static UserProfileDTO from(User user) {
+        return new UserProfileDTO(user.getId(), user.getName(), user.getEmail(), user.getRole(),
+                user.getProfilePicture(), user.getDateOfBirth(), user.getCreatedAt(), user.getUpdatedAt());
+    }
+}
@@ -0,0 +1,51 @@
+package com.faite_assessment.backend.Entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Inbox read model: one row per pair of users who have exchanged messages, lower user id first, with
+// the latest message and each side's unread count. Kept current by MessageService in the same
+// transaction as the messages themselves; rows are only written through ConversationRepository's
+// native statements, and can be rebuilt from messages at any time.
+@Entity
+@Table(name = "conversations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_conversations_pair", columnNames = {"user_low_id", "user_high_id"}),
+        indexes = {
+                // An inbox is two walks, one per side of the pair the user is on:
+                // WHERE user_low_id = ? (or user_high_id = ?) ORDER BY last_message_at DESC, id DESC
+                @Index(name = "idx_conversations_low_last", columnList = "user_low_id, last_message_at, id"),
+                @Index(name = "idx_conversations_high_last", columnList = "user_high_id, last_message_at, id")
+        })
+@Data
+public class Conversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_low_id", nullable = false)
+    private User userLow;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_high_id", nullable = false)
+    private User userHigh;
+
+    @Column(name = "last_message_preview", length = 200)
+    private String lastMessagePreview;
+
+    @Column(name = "last_sender_id")
+    private Long lastSenderId;
+
+    @Column(name = "last_message_at", nullable = false)
+    private LocalDateTime lastMessageAt;
+
+    // Messages to user_low_id it hasn't read yet, and the same for user_high_id
+    @Column(name = "unread_low", nullable = false)
+    private int unreadLow;
+
+    @Column(name = "unread_high", nullable = false)
+    private int unreadHigh;
+}
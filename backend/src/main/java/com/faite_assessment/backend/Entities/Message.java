@@ -5,7 +5,11 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // Backs conversation paging, read once per direction: WHERE sender_id = ? AND receiver_id = ?
+        // ORDER BY timestamp DESC, id DESC; also serves the sender_id foreign key and mark-as-read
+        @Index(name = "idx_messages_sender_receiver_time", columnList = "sender_id, receiver_id, timestamp, id")
+})
 @Data
 public class Message {
 
@@ -34,8 +38,11 @@ public class Message {
 
     private LocalDateTime timestamp;
 
+    // MessageService sets it itself, to the time its conversation row shows
     @PrePersist
     public void onCreate() {
-        timestamp = LocalDateTime.now();
+        if (timestamp == null) {
+            timestamp = LocalDateTime.now();
+        }
     }
 }
\ No newline at end of file
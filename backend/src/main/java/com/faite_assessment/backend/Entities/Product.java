@@ -10,7 +10,18 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // Backs the keyset browse: WHERE sale_status = ? ORDER BY created_at DESC, id DESC
+        @Index(name = "idx_products_status_created", columnList = "sale_status, created_at, id"),
+        // Same walk narrowed to one category or one condition
+        @Index(name = "idx_products_status_category_created", columnList = "sale_status, category, created_at, id"),
+        @Index(name = "idx_products_status_condition_created", columnList = "sale_status, product_condition, created_at, id"),
+        // Price ranges and price sorts, overall and within a category
+        @Index(name = "idx_products_status_price", columnList = "sale_status, price, id"),
+        @Index(name = "idx_products_status_category_price", columnList = "sale_status, category, price, id"),
+        // A seller's listings; also serves the user_id foreign key
+        @Index(name = "idx_products_user_status_created", columnList = "user_id, sale_status, created_at, id")
+})
 @Data
 public class Product {
 
@@ -37,6 +48,11 @@ public class Product {
 
     private String imageUrl;
 
+    // Resized JPEG copies of imageUrl, filled in by ImageVariantService after the upload; null until then
+    private String thumbnailUrl;
+    private String cardUrl;
+    private String detailUrl;
+
     private String phoneNum;
     @ManyToOne
     @JoinColumn(name = "user_id")
@@ -44,4 +60,10 @@ public class Product {
     private User user;
 
     private LocalDateTime createdAt;
+
+    // Optimistic lock, and the source of the product's ETag. The column default keeps plain SQL inserts working.
+    @Version
+    @Column(columnDefinition = "bigint not null default 0")
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,28 @@
+package com.faite_assessment.backend.Entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Deny-list entry: a used refresh token id (jti), or a whole token family (fid) after logout or reuse.
+// Kept until the tokens it covers would have expired anyway. Rows are only created through
+// RevokedTokenRepository.insertIfAbsent.
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")
+})
+@Data
+public class RevokedToken {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,41 @@
+package com.faite_assessment.backend.Entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One row per distinct uploaded file, keyed by the SHA-256 of its bytes. refCount is how many
+// product images and profile pictures currently point at it; zero means nothing uses the file any more.
+// Rows are only ever created through StoredBlobRepository.acquire.
+@Entity
+@Table(name = "stored_blobs", indexes = {
+        @Index(name = "idx_stored_blobs_ref_count", columnList = "ref_count, released_at")
+})
+@Data
+public class StoredBlob {
+
+    @Id
+    @Column(length = 64)
+    private String digest;
+
+    @Column(length = 8, nullable = false)
+    private String extension;
+
+    private String contentType;
+
+    private long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    private LocalDateTime createdAt;
+
+    // Last time a reference was taken; the sweeper leaves recently used files alone
+    @Column(name = "acquired_at")
+    private LocalDateTime acquiredAt;
+
+    // Last time a reference was dropped, so cleanup can give unreferenced files a grace period
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+}
@@ -1,6 +1,8 @@
 package com.faite_assessment.backend.Entities;
 
 import com.faite_assessment.backend.Models.Role;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
@@ -27,7 +29,10 @@ public class User {
     @Column(nullable = false, unique = true)
     private String email;
 
+    // Accepted on register, never written out: User is serialized as-is in several responses
+    // (admin user list, message inbox, a product's seller)
     @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
     @Enumerated(EnumType.STRING)
@@ -40,10 +45,24 @@ public class User {
     private LocalDateTime updatedAt;
 
 
+    // Optimistic lock, and the source of the /api/user/me ETag. The column default keeps plain SQL inserts working.
+    @Version
+    @Column(columnDefinition = "bigint not null default 0")
+    @JsonIgnore
+    private Long version;
+
+    // Refresh tokens issued before this are refused: moved forward when the password is reset or changed,
+    // which ends every existing session within one access token's life
+    @JsonIgnore
+    private LocalDateTime tokensValidAfter;
+
+    @JsonIgnore
     private String otp;
+    @JsonIgnore
     private LocalDateTime otpGeneratedTime;
 
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
     private List<ActivityLog> activityLogs;
 
     @ManyToMany
@@ -53,6 +72,7 @@ public class User {
             inverseJoinColumns = @JoinColumn(name = "product_id")
     )
     @ToString.Exclude
+    @JsonIgnore
     private List<Product> favoriteProducts;
 
     @PrePersist
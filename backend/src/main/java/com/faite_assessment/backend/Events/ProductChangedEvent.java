@@ -0,0 +1,21 @@
+package com.faite_assessment.backend.Events;
+
+import com.faite_assessment.backend.Entities.Product;
+
+// Published by ProductService after a product row is written. product is null when it was deleted.
+public record ProductChangedEvent(
+        Long productId,
+        Product product
+) {
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
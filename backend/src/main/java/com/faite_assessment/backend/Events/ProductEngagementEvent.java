@@ -0,0 +1,35 @@
+package com.faite_assessment.backend.Events;
+
+// A user showed interest in a product. Feeds the trending ranking; weight is how strong a signal it is.
+public record ProductEngagementEvent(
+        Long productId,
+        Signal signal
+) {
+    public enum Signal {
+        VIEW(1),
+        WISHLIST(3),
+        ORDER(5);
+
+        private final int weight;
+
+        Signal(int weight) {
+            this.weight = weight;
+        }
+
+        public int weight() {
+            return weight;
+        }
+    }
+
+    public static ProductEngagementEvent view(Long productId) {
+        return new ProductEngagementEvent(productId, Signal.VIEW);
+    }
+
+    public static ProductEngagementEvent wishlisted(Long productId) {
+        return new ProductEngagementEvent(productId, Signal.WISHLIST);
+    }
+
+    public static ProductEngagementEvent ordered(Long productId) {
+        return new ProductEngagementEvent(productId, Signal.ORDER);
+    }
+}
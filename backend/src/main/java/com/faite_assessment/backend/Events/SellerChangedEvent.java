@@ -0,0 +1,14 @@
+package com.faite_assessment.backend.Events;
+
+import com.faite_assessment.backend.Dtos.SellerSummary;
+import com.faite_assessment.backend.Entities.User;
+
+// Published by UserService after a user's name or profile picture changed. Product listings embed
+// both, so anything holding listing copies refreshes the seller from here.
+public record SellerChangedEvent(
+        SellerSummary seller
+) {
+    public static SellerChangedEvent of(User user) {
+        return new SellerChangedEvent(new SellerSummary(user.getId(), user.getName(), user.getProfilePicture()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.faite_assessment.backend.Events;
+
+// Published by MessageService when messages to a user arrive (delta > 0) or are read (delta < 0).
+// Acted on after the transaction commits; email is where the new total is pushed.
+public record UnreadCountChangedEvent(
+        Long userId,
+        String email,
+        long delta
+) {
+    public static UnreadCountChangedEvent received(Long userId, String email) {
+        return new UnreadCountChangedEvent(userId, email, 1);
+    }
+
+    public static UnreadCountChangedEvent read(Long userId, String email, long count) {
+        return new UnreadCountChangedEvent(userId, email, -count);
+    }
+}
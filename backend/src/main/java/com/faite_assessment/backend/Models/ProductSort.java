@@ -0,0 +1,7 @@
+package com.faite_assessment.backend.Models;
+
+public enum ProductSort {
+    NEWEST,
+    PRICE_ASC,
+    PRICE_DESC
+}
@@ -0,0 +1,98 @@
+package com.faite_assessment.backend.Repositories;
+
+import com.faite_assessment.backend.Dtos.ConversationSummaryDTO;
+import com.faite_assessment.backend.Entities.Conversation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+
+    // Records one new message in its pair's row, creating the row for a first message. A single statement
+    // under the row lock, so concurrent sends in one conversation each add their unread exactly once; the
+    // preview only moves forward in time.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO conversations (user_low_id, user_high_id, last_message_preview, last_sender_id, " +
+            "last_message_at, unread_low, unread_high) " +
+            "VALUES (:low, :high, :preview, :senderId, :at, :unreadLow, :unreadHigh) " +
+            "ON DUPLICATE KEY UPDATE " +
+            // Assignments see the values set before them, so last_message_at goes last
+            "last_message_preview = IF(:at >= last_message_at, :preview, last_message_preview), " +
+            "last_sender_id = IF(:at >= last_message_at, :senderId, last_sender_id), " +
+            "unread_low = unread_low + :unreadLow, " +
+            "unread_high = unread_high + :unreadHigh, " +
+            "last_message_at = GREATEST(last_message_at, :at)",
+            nativeQuery = true)
+    int recordMessage(@Param("low") Long low, @Param("high") Long high, @Param("preview") String preview,
+                      @Param("senderId") Long senderId, @Param("at") LocalDateTime at,
+                      @Param("unreadLow") int unreadLow, @Param("unreadHigh") int unreadHigh);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Conversation c SET c.unreadLow = 0 WHERE c.userLow.id = :reader AND c.userHigh.id = :partner")
+    int clearUnreadOfLow(@Param("reader") Long reader, @Param("partner") Long partner);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Conversation c SET c.unreadHigh = 0 WHERE c.userLow.id = :partner AND c.userHigh.id = :reader")
+    int clearUnreadOfHigh(@Param("reader") Long reader, @Param("partner") Long partner);
+
+    // Recomputes every pair's row from messages; the last message is the one with the highest id
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO conversations (user_low_id, user_high_id, last_message_preview, last_sender_id, " +
+            "last_message_at, unread_low, unread_high) " +
+            "SELECT pair.low, pair.high, LEFT(m.content, :previewLength), m.sender_id, m.timestamp, " +
+            "pair.unread_low, pair.unread_high " +
+            "FROM (SELECT LEAST(sender_id, receiver_id) AS low, GREATEST(sender_id, receiver_id) AS high, " +
+            "MAX(id) AS last_id, " +
+            "SUM(is_read = 0 AND receiver_id = LEAST(sender_id, receiver_id)) AS unread_low, " +
+            "SUM(is_read = 0 AND receiver_id = GREATEST(sender_id, receiver_id) " +
+            "AND sender_id <> receiver_id) AS unread_high " +
+            "FROM messages GROUP BY LEAST(sender_id, receiver_id), GREATEST(sender_id, receiver_id)) pair " +
+            "JOIN messages m ON m.id = pair.last_id " +
+            "ON DUPLICATE KEY UPDATE " +
+            "last_message_preview = VALUES(last_message_preview), last_sender_id = VALUES(last_sender_id), " +
+            "last_message_at = VALUES(last_message_at), unread_low = VALUES(unread_low), " +
+            "unread_high = VALUES(unread_high)",
+            nativeQuery = true)
+    int rebuildFromMessages(@Param("previewLength") int previewLength);
+
+    // A user's unread total is the sum of their side's count over both halves
+    @Query("SELECT COALESCE(SUM(c.unreadLow), 0) FROM Conversation c WHERE c.userLow.id = :userId")
+    long sumUnreadAsLow(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(c.unreadHigh), 0) FROM Conversation c " +
+            "WHERE c.userHigh.id = :userId AND c.userLow.id <> :userId")
+    long sumUnreadAsHigh(@Param("userId") Long userId);
+
+    // The two halves of an inbox page, newest first: conversations where the user has the lower id,
+    // then those where it has the higher one (a conversation with oneself only counts once). The caller
+    // merges them. A null beforeTime starts from the newest.
+    @Query("SELECT new com.faite_assessment.backend.Dtos.ConversationSummaryDTO(c.id, u.id, u.name, u.email, " +
+            "u.profilePicture, c.lastMessagePreview, c.lastSenderId, c.lastMessageAt, c.unreadLow) " +
+            "FROM Conversation c JOIN c.userHigh u WHERE c.userLow.id = :userId " +
+            "AND (:beforeTime IS NULL OR c.lastMessageAt < :beforeTime " +
+            "OR (c.lastMessageAt = :beforeTime AND c.id < :beforeId)) " +
+            "ORDER BY c.lastMessageAt DESC, c.id DESC")
+    List<ConversationSummaryDTO> findInboxAsLow(@Param("userId") Long userId,
+                                                @Param("beforeTime") LocalDateTime beforeTime,
+                                                @Param("beforeId") Long beforeId, Limit limit);
+
+    @Query("SELECT new com.faite_assessment.backend.Dtos.ConversationSummaryDTO(c.id, u.id, u.name, u.email, " +
+            "u.profilePicture, c.lastMessagePreview, c.lastSenderId, c.lastMessageAt, c.unreadHigh) " +
+            "FROM Conversation c JOIN c.userLow u WHERE c.userHigh.id = :userId AND c.userLow.id <> :userId " +
+            "AND (:beforeTime IS NULL OR c.lastMessageAt < :beforeTime " +
+            "OR (c.lastMessageAt = :beforeTime AND c.id < :beforeId)) " +
+            "ORDER BY c.lastMessageAt DESC, c.id DESC")
+    List<ConversationSummaryDTO> findInboxAsHigh(@Param("userId") Long userId,
+                                                 @Param("beforeTime") LocalDateTime beforeTime,
+                                                 @Param("beforeId") Long beforeId, Limit limit);
+}
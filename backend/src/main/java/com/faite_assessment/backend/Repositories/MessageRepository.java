@@ -1,28 +1,43 @@
 package com.faite_assessment.backend.Repositories;
 
 import com.faite_assessment.backend.Entities.Message;
-import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
-    @Query("SELECT m FROM Message m WHERE " +
-            "(m.sender.email = :user1 AND m.receiver.email = :user2) OR " +
-            "(m.sender.email = :user2 AND m.receiver.email = :user1) " +
-            "ORDER BY m.timestamp ASC")
-    List<Message> findConversation(@Param("user1") String user1, @Param("user2") String user2);
+    // Whole history, oldest first; kept for the unpaged conversation response
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver LEFT JOIN FETCH m.product WHERE " +
+            "(m.sender.id = :user1 AND m.receiver.id = :user2) OR " +
+            "(m.sender.id = :user2 AND m.receiver.id = :user1) " +
+            "ORDER BY m.timestamp ASC, m.id ASC")
+    List<Message> findConversation(@Param("user1") Long user1, @Param("user2") Long user2);
 
-    // --- FIX: Order by Timestamp DESC so the most recent messages come first ---
-    List<Message> findAllBySenderEmailOrReceiverEmailOrderByTimestampDesc(String senderEmail, String receiverEmail);
+    // One direction of a conversation, newest first, walking idx_messages_sender_receiver_time backwards.
+    // A conversation page is the merge of both directions, so each is one index range read of at most a page.
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver LEFT JOIN FETCH m.product " +
+            "WHERE m.sender.id = :senderId AND m.receiver.id = :receiverId " +
+            "ORDER BY m.timestamp DESC, m.id DESC")
+    List<Message> findLatestSent(@Param("senderId") Long senderId, @Param("receiverId") Long receiverId, Limit limit);
 
-    long countByReceiverEmailAndIsReadFalse(String receiverEmail);
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver LEFT JOIN FETCH m.product " +
+            "WHERE m.sender.id = :senderId AND m.receiver.id = :receiverId " +
+            "AND (m.timestamp < :beforeTime OR (m.timestamp = :beforeTime AND m.id < :beforeId)) " +
+            "ORDER BY m.timestamp DESC, m.id DESC")
+    List<Message> findSentBefore(@Param("senderId") Long senderId, @Param("receiverId") Long receiverId,
+                                 @Param("beforeTime") LocalDateTime beforeTime, @Param("beforeId") Long beforeId,
+                                 Limit limit);
 
     @Modifying
     @Transactional
-    @Query("UPDATE Message m SET m.isRead = true WHERE m.sender.id = :senderId AND m.receiver.email = :myEmail")
-    void markMessagesAsRead(@Param("senderId") Long senderId, @Param("myEmail") String myEmail);
+    @Query("UPDATE Message m SET m.isRead = true WHERE m.sender.id = :senderId AND m.receiver.id = :receiverId " +
+            "AND m.isRead = false")
+    int markMessagesAsRead(@Param("senderId") Long senderId, @Param("receiverId") Long receiverId);
 }
\ No newline at end of file
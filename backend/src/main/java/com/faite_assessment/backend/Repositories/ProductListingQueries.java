@@ -0,0 +1,19 @@
+package com.faite_assessment.backend.Repositories;
+
+import com.faite_assessment.backend.Dtos.ProductFilter;
+import com.faite_assessment.backend.Dtos.ProductResponseDTO;
+import com.faite_assessment.backend.Models.ProductSort;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Browse queries whose WHERE clause depends on which filters are set; see ProductListingQueriesImpl
+public interface ProductListingQueries {
+
+    // Sort key of the last row of the previous page. Only the field matching the sort is read.
+    record ListingSeek(LocalDateTime createdAt, Double price, Long id) {
+    }
+
+    List<ProductResponseDTO> findListings(ProductFilter filter, ProductSort sort, ListingSeek after, Limit limit);
+}
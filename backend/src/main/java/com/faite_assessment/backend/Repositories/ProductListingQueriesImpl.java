@@ -0,0 +1,110 @@
+package com.faite_assessment.backend.Repositories;
+
+import com.faite_assessment.backend.Dtos.ProductFilter;
+import com.faite_assessment.backend.Dtos.ProductResponseDTO;
+import com.faite_assessment.backend.Entities.Product;
+import com.faite_assessment.backend.Entities.User;
+import com.faite_assessment.backend.Models.ProductSort;
+import com.faite_assessment.backend.Models.SaleStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Only the filters that are actually set become predicates. A single JPQL string full of
+// "(:x IS NULL OR p.x = :x)" makes MySQL plan for the worst case and scan the table;
+// here every filter combination gets its own statement that can seek one of the
+// composite indexes declared on Product.
+class ProductListingQueriesImpl implements ProductListingQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductResponseDTO> findListings(ProductFilter filter, ProductSort sort, ListingSeek after, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductResponseDTO> query = cb.createQuery(ProductResponseDTO.class);
+        Root<Product> p = query.from(Product.class);
+        Join<Product, User> u = p.join("user", JoinType.LEFT);
+
+        query.select(cb.construct(ProductResponseDTO.class,
+                p.get("id"), p.get("title"), p.get("price"), p.get("category"), p.get("condition"),
+                p.get("saleStatus"), p.get("imageUrl"), p.get("thumbnailUrl"), p.get("cardUrl"), p.get("createdAt"),
+                u.get("id"), u.get("name"), u.get("profilePicture")));
+
+        Path<Long> id = p.get("id");
+        Path<Double> price = p.get("price");
+        Path<LocalDateTime> createdAt = p.get("createdAt");
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(p.get("saleStatus"), SaleStatus.AVAILABLE));
+        if (filter.category() != null) {
+            where.add(cb.equal(p.get("category"), filter.category()));
+        }
+        if (filter.condition() != null) {
+            where.add(cb.equal(p.get("condition"), filter.condition()));
+        }
+        if (filter.minPrice() != null) {
+            where.add(cb.greaterThanOrEqualTo(price, filter.minPrice()));
+        }
+        if (filter.maxPrice() != null) {
+            where.add(cb.lessThanOrEqualTo(price, filter.maxPrice()));
+        }
+        if (filter.sellerId() != null) {
+            // Compares the user_id column directly instead of going through the joined users row
+            where.add(cb.equal(p.get("user").get("id"), filter.sellerId()));
+        }
+        if (filter.keyword() != null && !filter.keyword().isBlank()) {
+            where.add(cb.like(cb.lower(p.get("title")), "%" + escapeLike(filter.keyword().toLowerCase()) + "%", '\\'));
+        }
+
+        switch (sort) {
+            case NEWEST -> {
+                if (after != null) {
+                    where.add(cb.or(cb.lessThan(createdAt, after.createdAt()),
+                            cb.and(cb.equal(createdAt, after.createdAt()), cb.lessThan(id, after.id()))));
+                }
+                query.orderBy(cb.desc(createdAt), cb.desc(id));
+            }
+            case PRICE_ASC -> {
+                // Unpriced listings have no place in a price ordering
+                where.add(cb.isNotNull(price));
+                if (after != null) {
+                    where.add(cb.or(cb.greaterThan(price, after.price()),
+                            cb.and(cb.equal(price, after.price()), cb.greaterThan(id, after.id()))));
+                }
+                query.orderBy(cb.asc(price), cb.asc(id));
+            }
+            case PRICE_DESC -> {
+                where.add(cb.isNotNull(price));
+                if (after != null) {
+                    where.add(cb.or(cb.lessThan(price, after.price()),
+                            cb.and(cb.equal(price, after.price()), cb.lessThan(id, after.id()))));
+                }
+                query.orderBy(cb.desc(price), cb.desc(id));
+            }
+        }
+
+        query.where(where.toArray(Predicate[]::new));
+        TypedQuery<ProductResponseDTO> typed = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typed.setMaxResults(limit.max());
+        }
+        return typed.getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,22 +1,72 @@
 package com.faite_assessment.backend.Repositories;
 
+import com.faite_assessment.backend.Dtos.ProductExportRow;
+import com.faite_assessment.backend.Dtos.ProductResponseDTO;
 import com.faite_assessment.backend.Entities.Product;
-import com.faite_assessment.backend.Models.Category;
+import com.faite_assessment.backend.Models.SaleStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductListingQueries {
+
+    // Listing columns plus a seller summary in a single query; see ProductResponseDTO
+    String LISTING_COLUMNS = "SELECT new com.faite_assessment.backend.Dtos.ProductResponseDTO(" +
+            "p.id, p.title, p.price, p.category, p.condition, p.saleStatus, p.imageUrl, p.thumbnailUrl, p.cardUrl, " +
+            "p.createdAt, u.id, u.name, u.profilePicture) ";
+    String LISTING_SELECT = LISTING_COLUMNS + "FROM Product p LEFT JOIN p.user u ";
+
     // Find all products where the owner's email matches
-    List<Product> findByUserEmail(String email);
+    @Query(LISTING_SELECT + "WHERE u.email = :email")
+    List<ProductResponseDTO> findListingsByUserEmail(@Param("email") String email);
+
+    @Query(LISTING_SELECT)
+    List<ProductResponseDTO> findAllListings();
+
+    @Query(LISTING_SELECT + "WHERE p.id IN :ids")
+    List<ProductResponseDTO> findListingsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // A user's liked products, straight from the user_favorites join table
+    @Query(LISTING_COLUMNS + "FROM User w JOIN w.favoriteProducts p LEFT JOIN p.user u WHERE w.email = :email")
+    List<ProductResponseDTO> findWishlistListings(@Param("email") String email);
+
+    // Id-ordered batches for rebuilding in-memory indexes without loading the whole table at once.
+    // The seller is fetched in the same query instead of one lookup per distinct user.
+    @EntityGraph(attributePaths = "user")
+    List<Product> findBySaleStatusAndIdGreaterThanOrderByIdAsc(SaleStatus saleStatus, Long id, Limit limit);
+
+    // Admin export: every product after `afterId` in id order, as flat rows rather than managed entities
+    @Query("SELECT new com.faite_assessment.backend.Dtos.ProductExportRow(" +
+            "p.id, p.title, p.description, p.price, p.category, p.condition, p.saleStatus, p.imageUrl, p.phoneNum, " +
+            "p.createdAt, u.id, u.name, u.email) " +
+            "FROM Product p LEFT JOIN p.user u WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductExportRow> findExportRowsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // (id, imageUrl) of products whose image has no resized variants yet, in id order
+    @Query("SELECT p.id, p.imageUrl FROM Product p WHERE p.cardUrl IS NULL AND p.imageUrl IS NOT NULL " +
+            "AND p.id > :afterId ORDER BY p.id")
+    List<Object[]> findImagesWithoutVariants(@Param("afterId") Long afterId, Limit limit);
+
+    // (id, imageUrl, thumbnailUrl, cardUrl, detailUrl) in id order, for the upload sweeper's mark phase
+    @Query("SELECT p.id, p.imageUrl, p.thumbnailUrl, p.cardUrl, p.detailUrl FROM Product p " +
+            "WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findImageReferences(@Param("afterId") Long afterId, Limit limit);
+
+    // Bumps the version as well, so cached detail responses pick up the new URLs
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.thumbnailUrl = :thumbnailUrl, p.cardUrl = :cardUrl, p.detailUrl = :detailUrl, " +
+            "p.version = p.version + 1 WHERE p.id = :id")
+    int updateImageVariants(@Param("id") Long id, @Param("thumbnailUrl") String thumbnailUrl,
+                            @Param("cardUrl") String cardUrl, @Param("detailUrl") String detailUrl);
 
-    @Query("SELECT p FROM Product p WHERE p.saleStatus = 'AVAILABLE' " +
-            "AND (:category IS NULL OR p.category = :category) " +
-            "AND (:keyword IS NULL OR LOWER(p.title) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
-            "ORDER BY p.createdAt DESC")
-    List<Product> searchProducts(@Param("keyword") String keyword, @Param("category") Category category);
     @Query("SELECT p.category, COUNT(p) FROM Product p GROUP BY p.category")
     List<Object[]> getCategoryStats();
 
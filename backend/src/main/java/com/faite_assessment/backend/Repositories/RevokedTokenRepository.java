@@ -0,0 +1,36 @@
+package com.faite_assessment.backend.Repositories;
+
+import com.faite_assessment.backend.Entities.RevokedToken;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // 1 if the id was added, 0 if it was already there. One statement, so when two requests race to
+    // use the same refresh token exactly one of them gets the 1.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO revoked_tokens (id, expires_at, revoked_at) VALUES (:id, :expiresAt, :now)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id, @Param("expiresAt") LocalDateTime expiresAt,
+                       @Param("now") LocalDateTime now);
+
+    // Entries still in force, in id order
+    @Query("SELECT r.id FROM RevokedToken r WHERE r.id > :afterId AND r.expiresAt > :now ORDER BY r.id")
+    List<String> findActiveIds(@Param("afterId") String afterId, @Param("now") LocalDateTime now, Limit limit);
+
+    @Query("SELECT r.id FROM RevokedToken r WHERE r.revokedAt >= :since AND r.expiresAt > :now")
+    List<String> findRevokedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,37 @@
+package com.faite_assessment.backend.Repositories;
+
+import com.faite_assessment.backend.Entities.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    // Inserts the row with one reference, or adds a reference if the file is already known. A single
+    // statement, so two concurrent uploads of the same bytes can't both insert or lose a count.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO stored_blobs (digest, extension, content_type, size_bytes, ref_count, created_at, acquired_at) " +
+            "VALUES (:digest, :extension, :contentType, :sizeBytes, 1, :now, :now) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, acquired_at = :now", nativeQuery = true)
+    void acquire(@Param("digest") String digest, @Param("extension") String extension,
+                 @Param("contentType") String contentType, @Param("sizeBytes") long sizeBytes,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1, b.releasedAt = :now " +
+            "WHERE b.digest = :digest AND b.refCount > 0")
+    int release(@Param("digest") String digest, @Param("now") LocalDateTime now);
+
+    // Locks the row, or the gap where it would go when there is none, until the transaction ends;
+    // a concurrent acquire() of the same digest waits for it. Native because Hibernate's MySQL dialect
+    // writes FOR UPDATE OF, which MariaDB doesn't accept.
+    @Query(value = "SELECT * FROM stored_blobs WHERE digest = :digest FOR UPDATE", nativeQuery = true)
+    Optional<StoredBlob> lockByDigest(@Param("digest") String digest);
+}
@@ -1,9 +1,13 @@
 package com.faite_assessment.backend.Repositories;
 
 import com.faite_assessment.backend.Entities.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +16,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    // (id, profilePicture) of users that have one, in id order
+    @Query("SELECT u.id, u.profilePicture FROM User u WHERE u.profilePicture IS NOT NULL " +
+            "AND u.id > :afterId ORDER BY u.id")
+    List<Object[]> findProfilePictures(@Param("afterId") Long afterId, Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.faite_assessment.backend.Search;
+
+import com.faite_assessment.backend.Entities.Product;
+import com.faite_assessment.backend.Models.SaleStatus;
+import com.faite_assessment.backend.Repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Walks every AVAILABLE product in id order, one bounded batch at a time.
+// Used by the in-memory indexes to rebuild themselves at startup.
+@Component
+@RequiredArgsConstructor
+public class ProductBatches {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+
+    // Returns the number of products visited
+    public int forEachAvailable(Consumer<List<Product>> consumer) {
+        long lastId = 0L;
+        int count = 0;
+        while (true) {
+            List<Product> batch = productRepository.findBySaleStatusAndIdGreaterThanOrderByIdAsc(
+                    SaleStatus.AVAILABLE, lastId, Limit.of(BATCH_SIZE));
+            if (batch.isEmpty()) {
+                return count;
+            }
+            consumer.accept(batch);
+            count += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+}
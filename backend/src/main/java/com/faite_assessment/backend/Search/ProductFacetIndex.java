@@ -0,0 +1,272 @@
+package com.faite_assessment.backend.Search;
+
+import com.faite_assessment.backend.Entities.Product;
+import com.faite_assessment.backend.Events.ProductChangedEvent;
+import com.faite_assessment.backend.Models.Category;
+import com.faite_assessment.backend.Models.ProductCondition;
+import com.faite_assessment.backend.Models.SaleStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// One compressed bitmap of product ids per facet value (category, condition, price bucket) over
+// AVAILABLE products. A filtered browse and all of its facet counts are bitmap intersections,
+// so the UI can show live counts without a GROUP BY per request.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetIndex {
+
+    private final ProductBatches productBatches;
+
+    // Upper bounds of the price buckets; the last bucket is open ended
+    @Value("${products.facets.price-buckets:25,50,100,250,500,1000}")
+    private double[] priceBounds;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final RoaringBitmap available = new RoaringBitmap();
+    private final EnumMap<Category, RoaringBitmap> byCategory = new EnumMap<>(Category.class);
+    private final EnumMap<ProductCondition, RoaringBitmap> byCondition = new EnumMap<>(ProductCondition.class);
+    private final Map<Integer, RoaringBitmap> byPriceBucket = new HashMap<>();
+    private final Map<Integer, FacetDoc> docs = new HashMap<>();
+
+    private volatile boolean ready;
+    private final Set<Long> touchedDuringRebuild = new HashSet<>();
+
+    private record FacetDoc(Category category, ProductCondition condition, Integer priceBucket) {
+    }
+
+    // keywordMatches is null when there is no keyword; any other argument may be null to mean "no filter"
+    public record FacetQuery(Category category, ProductCondition condition, String priceBucket,
+                             Collection<Long> keywordMatches) {
+    }
+
+    // ids holds up to `limit` matching product ids, newest (highest id) first, strictly below `beforeId`
+    public record FacetResult(List<Long> ids, long total, Map<String, Map<String, Long>> facets) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        productBatches.forEachAvailable(batch -> {
+            lock.writeLock().lock();
+            try {
+                for (Product product : batch) {
+                    if (!touchedDuringRebuild.contains(product.getId())) {
+                        put(product);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            available.runOptimize();
+            byCategory.values().forEach(RoaringBitmap::runOptimize);
+            byCondition.values().forEach(RoaringBitmap::runOptimize);
+            byPriceBucket.values().forEach(RoaringBitmap::runOptimize);
+            touchedDuringRebuild.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product facet index built: {} products in {} ms",
+                available.getCardinality(), System.currentTimeMillis() - started);
+    }
+
+    @Order(3)
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedDuringRebuild.add(event.productId());
+            }
+            remove(event.productId());
+            if (!event.isDeleted() && event.product().getSaleStatus() == SaleStatus.AVAILABLE) {
+                put(event.product());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public FacetResult query(FacetQuery query, Long beforeId, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap base = available;
+            if (query.keywordMatches() != null) {
+                RoaringBitmap matches = new RoaringBitmap();
+                query.keywordMatches().forEach(id -> matches.add(toBit(id)));
+                base = RoaringBitmap.and(base, matches);
+            }
+
+            RoaringBitmap categoryFilter = query.category() == null ? null : bitmapOf(byCategory.get(query.category()));
+            RoaringBitmap conditionFilter = query.condition() == null ? null : bitmapOf(byCondition.get(query.condition()));
+            RoaringBitmap priceFilter = null;
+            if (query.priceBucket() != null) {
+                Integer bucket = bucketOfLabel(query.priceBucket());
+                priceFilter = bucket == null ? new RoaringBitmap() : bitmapOf(byPriceBucket.get(bucket));
+            }
+
+            RoaringBitmap result = intersect(base, categoryFilter, conditionFilter, priceFilter);
+
+            // Each facet is counted against every filter except its own, so selecting a category
+            // still shows how many items the other categories would have
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+
+            RoaringBitmap categoryContext = intersect(base, conditionFilter, priceFilter);
+            Map<String, Long> categoryCounts = new LinkedHashMap<>();
+            for (Category category : Category.values()) {
+                categoryCounts.put(category.name(), andCardinality(categoryContext, byCategory.get(category)));
+            }
+            facets.put("category", categoryCounts);
+
+            RoaringBitmap conditionContext = intersect(base, categoryFilter, priceFilter);
+            Map<String, Long> conditionCounts = new LinkedHashMap<>();
+            for (ProductCondition condition : ProductCondition.values()) {
+                conditionCounts.put(condition.name(), andCardinality(conditionContext, byCondition.get(condition)));
+            }
+            facets.put("condition", conditionCounts);
+
+            RoaringBitmap priceContext = intersect(base, categoryFilter, conditionFilter);
+            Map<String, Long> priceCounts = new LinkedHashMap<>();
+            for (int bucket = 0; bucket <= priceBounds.length; bucket++) {
+                priceCounts.put(bucketLabel(bucket), andCardinality(priceContext, byPriceBucket.get(bucket)));
+            }
+            facets.put("price", priceCounts);
+
+            // Walk the result backwards from the cursor: newest ids first
+            List<Long> ids = new ArrayList<>(limit);
+            if (!result.isEmpty()) {
+                long next;
+                if (beforeId == null) {
+                    next = result.last();
+                } else {
+                    next = beforeId <= 0 ? -1 : result.previousValue(toBit(beforeId) - 1);
+                }
+                while (next >= 0 && ids.size() < limit) {
+                    ids.add(next);
+                    next = next == 0 ? -1 : result.previousValue((int) next - 1);
+                }
+            }
+
+            return new FacetResult(ids, result.getLongCardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void put(Product product) {
+        int bit = toBit(product.getId());
+        Integer bucket = product.getPrice() == null ? null : bucketOf(product.getPrice());
+
+        available.add(bit);
+        if (product.getCategory() != null) {
+            byCategory.computeIfAbsent(product.getCategory(), c -> new RoaringBitmap()).add(bit);
+        }
+        if (product.getCondition() != null) {
+            byCondition.computeIfAbsent(product.getCondition(), c -> new RoaringBitmap()).add(bit);
+        }
+        if (bucket != null) {
+            byPriceBucket.computeIfAbsent(bucket, b -> new RoaringBitmap()).add(bit);
+        }
+        docs.put(bit, new FacetDoc(product.getCategory(), product.getCondition(), bucket));
+    }
+
+    // Caller holds the write lock
+    private void remove(Long productId) {
+        int bit = toBit(productId);
+        FacetDoc doc = docs.remove(bit);
+        if (doc == null) {
+            return;
+        }
+        available.remove(bit);
+        if (doc.category() != null) {
+            byCategory.get(doc.category()).remove(bit);
+        }
+        if (doc.condition() != null) {
+            byCondition.get(doc.condition()).remove(bit);
+        }
+        if (doc.priceBucket() != null) {
+            byPriceBucket.get(doc.priceBucket()).remove(bit);
+        }
+    }
+
+    private int bucketOf(double price) {
+        for (int i = 0; i < priceBounds.length; i++) {
+            if (price < priceBounds[i]) {
+                return i;
+            }
+        }
+        return priceBounds.length;
+    }
+
+    // "0-25", "25-50", ..., "1000+"
+    private String bucketLabel(int bucket) {
+        if (bucket == priceBounds.length) {
+            return formatBound(priceBounds[bucket - 1]) + "+";
+        }
+        String lower = bucket == 0 ? "0" : formatBound(priceBounds[bucket - 1]);
+        return lower + "-" + formatBound(priceBounds[bucket]);
+    }
+
+    private Integer bucketOfLabel(String label) {
+        for (int bucket = 0; bucket <= priceBounds.length; bucket++) {
+            if (bucketLabel(bucket).equals(label)) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+
+    private static String formatBound(double bound) {
+        return bound == Math.rint(bound) ? String.valueOf((long) bound) : String.valueOf(bound);
+    }
+
+    private static RoaringBitmap bitmapOf(RoaringBitmap bitmap) {
+        return bitmap == null ? new RoaringBitmap() : bitmap;
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap base, RoaringBitmap... filters) {
+        RoaringBitmap result = base;
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result = RoaringBitmap.and(result, filter);
+            }
+        }
+        return result;
+    }
+
+    private static long andCardinality(RoaringBitmap a, RoaringBitmap b) {
+        return b == null ? 0 : RoaringBitmap.andCardinality(a, b);
+    }
+
+    private static int toBit(Long productId) {
+        return Math.toIntExact(productId);
+    }
+}
@@ -0,0 +1,294 @@
+package com.faite_assessment.backend.Search;
+
+import com.faite_assessment.backend.Dtos.ProductResponseDTO;
+import com.faite_assessment.backend.Dtos.SellerSummary;
+import com.faite_assessment.backend.Entities.Product;
+import com.faite_assessment.backend.Events.ProductChangedEvent;
+import com.faite_assessment.backend.Events.SellerChangedEvent;
+import com.faite_assessment.backend.Models.Category;
+import com.faite_assessment.backend.Models.SaleStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over AVAILABLE products' title and description.
+// Rebuilt from the database at startup and kept current from ProductChangedEvent and, for the
+// seller shown on each listing, SellerChangedEvent, so keyword search never has to run a LIKE scan
+// against the products table.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // A title hit counts this many times more than a description hit
+    private static final int TITLE_WEIGHT = 3;
+
+    // How many dictionary terms the last (still being typed) query word may expand to
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final ProductBatches productBatches;
+
+    @Value("${products.search.index-enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (productId -> field-weighted term frequency). Sorted so prefixes are a range scan.
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, IndexedDoc> docs = new HashMap<>();
+    private long totalLength;
+
+    private volatile boolean ready;
+
+    // Ids written while the startup rebuild is running; the event already carries the newest state
+    private final Set<Long> touchedDuringRebuild = new HashSet<>();
+    // Likewise sellers edited meanwhile: batches read before the edit still carry the old name and picture
+    private final Map<Long, SellerSummary> sellersChangedDuringRebuild = new HashMap<>();
+
+    // Only the listing view of each product is kept, which is also what search returns
+    private record IndexedDoc(ProductResponseDTO product, int length, Set<String> terms) {
+    }
+
+    private record Scored(ProductResponseDTO product, double score) {
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        int count = productBatches.forEachAvailable(batch -> {
+            lock.writeLock().lock();
+            try {
+                for (Product product : batch) {
+                    if (!touchedDuringRebuild.contains(product.getId())) {
+                        put(product);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            touchedDuringRebuild.clear();
+            sellersChangedDuringRebuild.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built: {} products, {} terms in {} ms",
+                count, postings.size(), System.currentTimeMillis() - started);
+    }
+
+    @Order(2)
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedDuringRebuild.add(event.productId());
+            }
+            remove(event.productId());
+            if (!event.isDeleted() && event.product().getSaleStatus() == SaleStatus.AVAILABLE) {
+                put(event.product());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A profile edit touches none of the seller's products, so their documents are updated in place
+    @Order(2)
+    @EventListener
+    public void onSellerChanged(SellerChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        SellerSummary seller = event.seller();
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                sellersChangedDuringRebuild.put(seller.id(), seller);
+            }
+            docs.replaceAll((id, doc) -> doc.product().seller() != null && seller.id().equals(doc.product().seller().id())
+                    ? new IndexedDoc(doc.product().withSeller(seller), doc.length(), doc.terms())
+                    : doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ranked keyword search. Terms are ANDed unless the query contains an upper-case OR,
+    // e.g. "phone OR tablet". The last word is also matched as a prefix to support typeahead.
+    public List<ProductResponseDTO> search(String query, Category category) {
+        List<String> rawTokens = new ArrayList<>();
+        for (String token : query.trim().split("\\s+")) {
+            if (!token.isEmpty()) {
+                rawTokens.add(token);
+            }
+        }
+        boolean anyMatch = rawTokens.contains("OR");
+
+        List<String> words = new ArrayList<>();
+        for (String token : rawTokens) {
+            if (!token.equals("OR") && !token.equals("AND")) {
+                words.addAll(TextAnalyzer.tokenize(token));
+            }
+        }
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        boolean lastIsPrefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            // One map of productId -> score per query word; a word may expand to several terms
+            List<Map<Long, Double>> perWord = new ArrayList<>();
+            for (int i = 0; i < words.size(); i++) {
+                List<String> analyzed = TextAnalyzer.analyze(words.get(i));
+                boolean prefix = lastIsPrefix && i == words.size() - 1;
+                if (analyzed.isEmpty() && !prefix) {
+                    continue; // stop word
+                }
+                Set<String> terms = new HashSet<>(analyzed);
+                if (prefix) {
+                    terms.addAll(expandPrefix(words.get(i)));
+                }
+                perWord.add(scoreTerms(terms));
+            }
+            if (perWord.isEmpty()) {
+                return List.of();
+            }
+
+            Map<Long, Double> combined = new HashMap<>(perWord.get(0));
+            for (int i = 1; i < perWord.size(); i++) {
+                Map<Long, Double> next = perWord.get(i);
+                if (anyMatch) {
+                    next.forEach((id, score) -> combined.merge(id, score, Double::sum));
+                } else {
+                    combined.keySet().retainAll(next.keySet());
+                    combined.replaceAll((id, score) -> score + next.get(id));
+                }
+            }
+
+            List<Scored> hits = new ArrayList<>(combined.size());
+            for (Map.Entry<Long, Double> entry : combined.entrySet()) {
+                ProductResponseDTO product = docs.get(entry.getKey()).product();
+                if (category == null || product.category() == category) {
+                    hits.add(new Scored(product, entry.getValue()));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(Scored::score).reversed()
+                    .thenComparing(s -> s.product().createdAt(), Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(s -> s.product().id(), Comparator.reverseOrder()));
+
+            return hits.stream().map(Scored::product).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the read lock. Best BM25 score per product across the given terms.
+    private Map<Long, Double> scoreTerms(Set<String> terms) {
+        Map<Long, Double> scores = new HashMap<>();
+        int n = docs.size();
+        double avgLength = n == 0 ? 1.0 : (double) totalLength / n;
+        for (String term : terms) {
+            Map<Long, Integer> postingList = postings.get(term);
+            if (postingList == null) {
+                continue;
+            }
+            int df = postingList.size();
+            double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            for (Map.Entry<Long, Integer> posting : postingList.entrySet()) {
+                int tf = posting.getValue();
+                int length = docs.get(posting.getKey()).length();
+                double score = idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / avgLength));
+                scores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    // Caller holds the read lock
+    private List<String> expandPrefix(String prefix) {
+        List<String> expansions = new ArrayList<>();
+        for (String term : postings.tailMap(prefix, true).keySet()) {
+            if (!term.startsWith(prefix) || expansions.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            expansions.add(term);
+        }
+        return expansions;
+    }
+
+    // Caller holds the write lock
+    private void put(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : TextAnalyzer.analyze(product.getTitle())) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : TextAnalyzer.analyze(product.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(product.getId(), entry.getValue());
+            length += entry.getValue();
+        }
+        ProductResponseDTO listing = ProductResponseDTO.from(product);
+        SellerSummary changedSeller = listing.seller() == null ? null : sellersChangedDuringRebuild.get(listing.seller().id());
+        if (changedSeller != null) {
+            listing = listing.withSeller(changedSeller);
+        }
+        docs.put(product.getId(), new IndexedDoc(listing, length, frequencies.keySet()));
+        totalLength += length;
+    }
+
+    // Caller holds the write lock
+    private void remove(Long productId) {
+        IndexedDoc doc = docs.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms()) {
+            Map<Long, Integer> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(productId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= doc.length();
+    }
+}
@@ -0,0 +1,111 @@
+package com.faite_assessment.backend.Search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Turns free text into index terms: lowercase, strip accents, split on non-alphanumerics,
+// drop stop words and apply a light English suffix stemmer.
+public final class TextAnalyzer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is",
+            "it", "of", "on", "or", "the", "this", "to", "with"
+    );
+
+    private TextAnalyzer() {
+    }
+
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokenize(text)) {
+            if (!STOP_WORDS.contains(token)) {
+                terms.add(stem(token));
+            }
+        }
+        return terms;
+    }
+
+    public static boolean isStopWord(String token) {
+        return STOP_WORDS.contains(token);
+    }
+
+    // Lowercased tokens without stemming or stop word removal
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        for (String token : normalized.split("[^\\p{Alnum}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // A trimmed-down Porter step 1: plurals, -ed/-ing, -ly and -ness. Good enough to make
+    // "phones"/"phone" and "charging"/"charger"/"charge" meet without an external library.
+    static String stem(String word) {
+        if (word.length() <= 3 || !Character.isLetter(word.charAt(word.length() - 1))) {
+            return word;
+        }
+        String w = word;
+
+        if (w.endsWith("sses")) {
+            w = w.substring(0, w.length() - 2);
+        } else if (w.endsWith("ies") && w.length() > 4) {
+            w = w.substring(0, w.length() - 3) + "y";
+        } else if (w.endsWith("s") && !w.endsWith("ss") && !w.endsWith("us") && !w.endsWith("is")) {
+            w = w.substring(0, w.length() - 1);
+        }
+
+        if (w.endsWith("ness") && w.length() > 6) {
+            w = w.substring(0, w.length() - 4);
+        } else if (w.endsWith("ly") && w.length() > 5) {
+            w = w.substring(0, w.length() - 2);
+        }
+
+        String base = null;
+        if (w.endsWith("ing") && w.length() > 5) {
+            base = w.substring(0, w.length() - 3);
+        } else if (w.endsWith("ed") && w.length() > 4) {
+            base = w.substring(0, w.length() - 2);
+        } else if (w.endsWith("er") && w.length() > 5) {
+            base = w.substring(0, w.length() - 2);
+        }
+        if (base != null && hasVowel(base)) {
+            w = base;
+            // "running" -> "runn" -> "run", but keep "fall", "dress", "buzz"
+            int n = w.length();
+            if (n > 2 && w.charAt(n - 1) == w.charAt(n - 2) && "lsz".indexOf(w.charAt(n - 1)) < 0
+                    && !isVowel(w.charAt(n - 1))) {
+                w = w.substring(0, n - 1);
+            }
+        }
+
+        // Drop a trailing silent e so "charge" meets "charg(ing)"
+        if (w.length() > 4 && w.endsWith("e")) {
+            w = w.substring(0, w.length() - 1);
+        }
+        return w;
+    }
+
+    private static boolean hasVowel(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (isVowel(s.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVowel(char c) {
+        return "aeiouy".indexOf(c) >= 0;
+    }
+}
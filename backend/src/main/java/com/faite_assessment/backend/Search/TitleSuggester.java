@@ -0,0 +1,300 @@
+package com.faite_assessment.backend.Search;
+
+import com.faite_assessment.backend.Entities.Product;
+import com.faite_assessment.backend.Events.ProductChangedEvent;
+import com.faite_assessment.backend.Models.SaleStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Typeahead over the words of AVAILABLE product titles, held in a compressed (radix) trie.
+// A word's weight is the sum of a recency score over every listing that uses it, so words that
+// many recent listings share rank first. Every node tracks the best weight below it, which lets
+// top-k run best-first and stop after k results instead of walking the whole subtree.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TitleSuggester {
+
+    // Forward decay: a listing contributes exp((createdAt - LANDMARK) / TAU). Relative weights then
+    // age correctly without ever rescaling, and removing a listing subtracts exactly what it added.
+    private static final long LANDMARK_EPOCH_SECONDS = LocalDateTime.of(2025, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final double TAU_SECONDS = 30.0 * 24 * 3600;
+    private static final double MAX_EXPONENT = 600;
+
+    private static final int MIN_WORD_LENGTH = 2;
+
+    private final ProductBatches productBatches;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node("");
+    private final Map<Long, Listing> listings = new HashMap<>();
+
+    private volatile boolean ready;
+    private final Set<Long> touchedDuringRebuild = new HashSet<>();
+
+    private record Listing(Set<String> words, double weight) {
+    }
+
+    private static final class Node {
+        String label;
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        // Set when a word ends at this node; count is how many listings use it
+        String word;
+        double weight;
+        int count;
+        // Largest word weight in this subtree, including this node
+        double best;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    // Best-first search entry: either a subtree (bounded by its best weight) or a finished word
+    private record Candidate(Node node, String word, double priority) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        int count = productBatches.forEachAvailable(batch -> {
+            lock.writeLock().lock();
+            try {
+                for (Product product : batch) {
+                    if (!touchedDuringRebuild.contains(product.getId())) {
+                        put(product);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            touchedDuringRebuild.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Title suggester built from {} products in {} ms", count, System.currentTimeMillis() - started);
+    }
+
+    @Order(4)
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedDuringRebuild.add(event.productId());
+            }
+            remove(event.productId());
+            if (!event.isDeleted() && event.product().getSaleStatus() == SaleStatus.AVAILABLE) {
+                put(event.product());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Completes the last word of `input`; earlier words are kept as typed (normalized), e.g. "red sh" -> "red shoes"
+    public List<String> suggest(String input, int limit) {
+        List<String> words = TextAnalyzer.tokenize(input);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String prefix = words.get(words.size() - 1);
+        String lead = String.join(" ", words.subList(0, words.size() - 1));
+
+        List<String> completions;
+        lock.readLock().lock();
+        try {
+            completions = topK(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (lead.isEmpty()) {
+            return completions;
+        }
+        Set<String> phrases = new LinkedHashSet<>();
+        for (String completion : completions) {
+            phrases.add(lead + " " + completion);
+        }
+        return new ArrayList<>(phrases);
+    }
+
+    // Caller holds the read lock
+    private List<String> topK(String prefix, int k) {
+        // Walk down to the subtree that holds every word starting with `prefix`
+        Node node = root;
+        int matched = 0;
+        while (matched < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(matched));
+            if (child == null) {
+                return List.of();
+            }
+            int common = commonPrefix(child.label, prefix, matched);
+            if (matched + common < prefix.length() && common < child.label.length()) {
+                return List.of(); // diverges in the middle of an edge
+            }
+            matched += common;
+            node = child;
+        }
+
+        List<String> results = new ArrayList<>(k);
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(
+                Comparator.comparingDouble(Candidate::priority).reversed());
+        queue.add(new Candidate(node, null, node.best));
+        while (!queue.isEmpty() && results.size() < k) {
+            Candidate candidate = queue.poll();
+            if (candidate.word() != null) {
+                results.add(candidate.word());
+                continue;
+            }
+            Node current = candidate.node();
+            if (current.word != null) {
+                queue.add(new Candidate(null, current.word, current.weight));
+            }
+            for (Node child : current.children.values()) {
+                queue.add(new Candidate(child, null, child.best));
+            }
+        }
+        return results;
+    }
+
+    // Caller holds the write lock
+    private void put(Product product) {
+        Set<String> words = new HashSet<>();
+        for (String token : TextAnalyzer.tokenize(product.getTitle())) {
+            if (token.length() >= MIN_WORD_LENGTH && !TextAnalyzer.isStopWord(token)) {
+                words.add(token);
+            }
+        }
+        double weight = recencyWeight(product.getCreatedAt());
+        for (String word : words) {
+            adjust(word, weight, 1);
+        }
+        listings.put(product.getId(), new Listing(words, weight));
+    }
+
+    // Caller holds the write lock
+    private void remove(Long productId) {
+        Listing listing = listings.remove(productId);
+        if (listing == null) {
+            return;
+        }
+        for (String word : listing.words()) {
+            adjust(word, -listing.weight(), -1);
+        }
+    }
+
+    private static double recencyWeight(LocalDateTime createdAt) {
+        if (createdAt == null) {
+            return 1.0;
+        }
+        double exponent = (createdAt.toEpochSecond(ZoneOffset.UTC) - LANDMARK_EPOCH_SECONDS) / TAU_SECONDS;
+        return Math.exp(Math.max(-MAX_EXPONENT, Math.min(MAX_EXPONENT, exponent)));
+    }
+
+    // Adds to a word's weight and listing count, inserting or deleting it as needed,
+    // then refreshes `best` up the path
+    private void adjust(String word, double delta, int countDelta) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int matched = 0;
+        while (matched < word.length()) {
+            char next = word.charAt(matched);
+            Node child = node.children.get(next);
+            if (child == null) {
+                if (countDelta <= 0) {
+                    return;
+                }
+                child = new Node(word.substring(matched));
+                node.children.put(next, child);
+                matched = word.length();
+            } else {
+                int common = commonPrefix(child.label, word, matched);
+                if (common < child.label.length()) {
+                    if (countDelta <= 0) {
+                        return;
+                    }
+                    // Split the edge: node -> middle(common part) -> child(rest)
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.children.put(child.label.charAt(0), child);
+                    middle.best = child.best;
+                    node.children.put(next, middle);
+                    child = middle;
+                }
+                matched += common;
+            }
+            node = child;
+            path.add(node);
+        }
+
+        node.count += countDelta;
+        if (node.count <= 0) {
+            node.count = 0;
+            node.weight = 0;
+            node.word = null;
+        } else {
+            node.weight += delta;
+            node.word = word;
+        }
+
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node current = path.get(i);
+            if (i > 0) {
+                Node parent = path.get(i - 1);
+                if (current.word == null && current.children.isEmpty()) {
+                    parent.children.remove(current.label.charAt(0));
+                    continue;
+                }
+                // Merge a pass-through node into its only child to keep the trie compressed
+                if (current.word == null && current.children.size() == 1) {
+                    Node only = current.children.firstEntry().getValue();
+                    only.label = current.label + only.label;
+                    parent.children.put(only.label.charAt(0), only);
+                    continue;
+                }
+            }
+            double best = current.word == null ? 0 : current.weight;
+            for (Node child : current.children.values()) {
+                best = Math.max(best, child.best);
+            }
+            current.best = best;
+        }
+    }
+
+    private static int commonPrefix(String label, String word, int offset) {
+        int i = 0;
+        while (i < label.length() && offset + i < word.length() && label.charAt(i) == word.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,18 @@
+package com.faite_assessment.backend.Security;
+
+import java.security.Principal;
+
+// The caller, as stated by a verified access token. Set as the Authentication principal by JwtFilter;
+// controllers take it with @AuthenticationPrincipal instead of re-reading the header and the users table.
+// getName() is the email, so Authentication.getName() and Principal.getName() keep returning it.
+public record AuthenticatedUser(Long id, String email, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equalsIgnoreCase(role);
+    }
+}
@@ -1,25 +1,35 @@
 package com.faite_assessment.backend.Security;
 
-import com.faite_assessment.backend.Services.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserService userService;
+    private final TokenRevocations tokenRevocations;
+
+    // Public upload assets never carry a token worth parsing. This filter is also registered with the
+    // servlet container as a plain @Component, so it has to opt out itself as well as via the security chain.
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/uploads/");
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -29,29 +39,34 @@ public class JwtFilter extends OncePerRequestFilter {
 
         String authHeader = request.getHeader("Authorization");
 
-        String token = null;
-        String email = null;
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            email = jwtUtil.extractEmail(token);
-        }
-
-        // Inside your JwtFilter.java, update the if (email != null...) block:
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // One verification per request; invalid or expired tokens simply leave the request anonymous
+            Claims claims = null;
+            try {
+                claims = jwtUtil.parseClaims(authHeader.substring(7));
+            } catch (JwtException | IllegalArgumentException e) {
+                // fall through unauthenticated
+            }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(token)) {
-                // Extract the role from the token
-                String role = jwtUtil.extractRole(token);
+            // Refresh tokens are not access tokens, and a logged-out session's tokens die with it.
+            // Tokens from before uid was added are refused too; the client refreshes and gets one with it.
+            if (claims != null && claims.getSubject() != null
+                    && claims.get(JwtUtil.USER_ID_CLAIM, Long.class) != null
+                    && !JwtUtil.REFRESH_TYPE.equals(claims.get(JwtUtil.TYPE_CLAIM, String.class))
+                    && !tokenRevocations.isRevoked(claims.get(JwtUtil.FAMILY_CLAIM, String.class))) {
+                String role = claims.get("role", String.class);
+                AuthenticatedUser principal =
+                        new AuthenticatedUser(claims.get(JwtUtil.USER_ID_CLAIM, Long.class), claims.getSubject(), role);
 
                 //  Convert the role string into a format Spring Security understands
                 // Usually "ROLE_USER" or "ROLE_ADMIN"
-                java.util.List<org.springframework.security.core.authority.SimpleGrantedAuthority> authorities =
-                        java.util.List.of(new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+                List<SimpleGrantedAuthority> authorities = role == null
+                        ? List.of()
+                        : List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
 
-                //  Pass the authorities list instead of null
                 UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(email, null, authorities);
+                        new UsernamePasswordAuthenticationToken(principal, null, authorities);
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
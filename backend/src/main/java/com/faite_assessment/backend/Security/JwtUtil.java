@@ -1,12 +1,25 @@
 package com.faite_assessment.backend.Security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
@@ -15,44 +28,132 @@ public class JwtUtil {
     private static final String SECRET = "SUPER_SECRET_KEY_FAITE_ASSESSMENT_1234567890";
     private static final long EXPIRATION_TIME = 1000 * 60 * 15; // 15 minutes
 
+    // Refresh tokens carry typ=refresh and are only accepted by /api/auth/refresh and /logout.
+    // Both kinds carry the family id (fid) of the login they descend from, so one deny-list entry
+    // ends a whole session.
+    public static final String TYPE_CLAIM = "typ";
+    public static final String REFRESH_TYPE = "refresh";
+    public static final String FAMILY_CLAIM = "fid";
+    public static final String USER_ID_CLAIM = "uid";
+
+    private final Duration refreshTtl;
+
+    // Key and parser are immutable and thread-safe, so they are built once
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+    // Verified claims by SHA-256 of the token, each kept until the token's own exp. A client sends the
+    // same token on every request for its 15 minute life, so most requests skip the HMAC check.
+    private final Cache<String, Claims> verifiedClaims;
+
+    public JwtUtil(@Value("${security.jwt.claims-cache.max-size:50000}") long maxSize,
+                   @Value("${security.jwt.refresh-ttl:14d}") Duration refreshTtl) {
+        this.refreshTtl = refreshTtl;
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
+    }
+
+    // Verifies the token once and returns all of its claims; throws JwtException (expired, bad
+    // signature, malformed) or IllegalArgumentException (empty) when it isn't valid
+    public Claims parseClaims(String token) {
+        String key = hashOf(token);
+        Claims cached = verifiedClaims.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        // Tokens without an exp would otherwise stay cached until evicted by size
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(key, claims);
+        }
+        return claims;
+    }
+
+    public Map<String, Object> claimsCacheStats() {
+        CacheStats stats = verifiedClaims.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", verifiedClaims.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
     }
 
-    public String generateToken(String email, String role) {
+    private static String hashOf(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public String generateToken(Long userId, String email, String role, String familyId) {
         return Jwts.builder()
                 .setSubject(email)
+                .claim(USER_ID_CLAIM, userId)
                 .claim("role", role)
+                .claim(FAMILY_CLAIM, familyId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
                 .signWith(getSigningKey())
                 .compact();
     }
 
+    // Single use: every refresh consumes its jti and hands out a new refresh token in the same family
+    public String generateRefreshToken(Long userId, String email, String role, String familyId) {
+        return Jwts.builder()
+                .setSubject(email)
+                .claim(USER_ID_CLAIM, userId)
+                .claim("role", role)
+                .claim(TYPE_CLAIM, REFRESH_TYPE)
+                .claim(FAMILY_CLAIM, familyId)
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + refreshTtl.toMillis()))
+                .signWith(getSigningKey())
+                .compact();
+    }
+
+    public Duration getRefreshTtl() {
+        return refreshTtl;
+    }
+
     public String extractEmail(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
     // Add this method inside your JwtUtil class
     public String extractRole(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role", String.class);
+        return parseClaims(token).get("role", String.class);
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            parseClaims(token);
             return true;
         } catch (Exception e) {
             return false;
@@ -0,0 +1,99 @@
+package com.faite_assessment.backend.Security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Token buckets for password endpoints, one per client IP and one per account, checked before any
+// database or BCrypt work so a credential-stuffing burst is turned away with a 429 for next to nothing.
+// A check is one CAS per bucket (see RateLimit). Idle buckets are dropped after they would have refilled anyway.
+// The client IP is request.getRemoteAddr(); behind a proxy set server.forward-headers-strategy.
+@Component
+public class LoginThrottle {
+
+    private final RateLimit perIp;
+    private final RateLimit perAccount;
+    private final Cache<String, AtomicLong> buckets;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedIp = new LongAdder();
+    private final LongAdder rejectedAccount = new LongAdder();
+
+    public static class TooManyAttemptsException extends ResponseStatusException {
+
+        private final long retryAfterSeconds;
+
+        TooManyAttemptsException(long retryAfterSeconds) {
+            super(HttpStatus.TOO_MANY_REQUESTS, "Too many attempts, try again in " + retryAfterSeconds + "s");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return headers;
+        }
+    }
+
+    public LoginThrottle(@Value("${security.login-throttle.ip.per-minute:30}") int ipPerMinute,
+                         @Value("${security.login-throttle.ip.burst:10}") int ipBurst,
+                         @Value("${security.login-throttle.account.per-minute:6}") int accountPerMinute,
+                         @Value("${security.login-throttle.account.burst:5}") int accountBurst,
+                         @Value("${security.login-throttle.max-tracked:200000}") long maxTracked) {
+        this.perIp = RateLimit.of(ipPerMinute, ipBurst);
+        this.perAccount = RateLimit.of(accountPerMinute, accountBurst);
+        long longestRefill = Math.max(perIp.refillNanos(), perAccount.refillNanos());
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterAccess(Duration.ofNanos(longestRefill))
+                .build();
+    }
+
+    // Takes a token from the caller's IP bucket and, when given, the account's; throws 429 if either is empty
+    public void check(HttpServletRequest request, String account) {
+        long retryNanos = perIp.take(bucket("ip:" + request.getRemoteAddr()));
+        if (retryNanos > 0) {
+            rejectedIp.increment();
+            throw tooMany(retryNanos);
+        }
+        if (account != null && !account.isBlank()) {
+            retryNanos = perAccount.take(bucket("account:" + account.trim().toLowerCase(Locale.ROOT)));
+            if (retryNanos > 0) {
+                rejectedAccount.increment();
+                throw tooMany(retryNanos);
+            }
+        }
+        allowed.increment();
+    }
+
+    private AtomicLong bucket(String key) {
+        return buckets.get(key, k -> RateLimit.newBucket());
+    }
+
+    private static TooManyAttemptsException tooMany(long retryNanos) {
+        return new TooManyAttemptsException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryNanos) + 1));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("trackedBuckets", buckets.estimatedSize());
+        result.put("allowed", allowed.sum());
+        result.put("rejectedPerIp", rejectedIp.sum());
+        result.put("rejectedPerAccount", rejectedAccount.sum());
+        return result;
+    }
+}
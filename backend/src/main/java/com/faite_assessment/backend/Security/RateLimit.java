@@ -0,0 +1,41 @@
+package com.faite_assessment.backend.Security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One rate, `perMinute` sustained and up to `burst` at once after a quiet spell, applied to any number of
+// buckets. A bucket is a single AtomicLong holding its theoretical arrival time (GCRA): taking a token
+// is one CAS, no locks, no refill thread.
+record RateLimit(long intervalNanos, long toleranceNanos) {
+
+    static RateLimit of(int perMinute, int burst) {
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(perMinute, 1);
+        return new RateLimit(interval, interval * Math.max(burst - 1, 0));
+    }
+
+    static AtomicLong newBucket() {
+        return new AtomicLong(Long.MIN_VALUE);
+    }
+
+    // How long an idle bucket takes to fill up again, after which it can be dropped
+    long refillNanos() {
+        return intervalNanos + toleranceNanos;
+    }
+
+    // 0 if allowed, otherwise how long until it would be
+    long take(AtomicLong bucket) {
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = bucket.get();
+            long base = arrival == Long.MIN_VALUE || arrival - now < 0 ? now : arrival;
+            long next = base + intervalNanos;
+            long excess = next - now - intervalNanos - toleranceNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.faite_assessment.backend.Security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Authenticates STOMP CONNECT frames from the access token alone, like JwtFilter does for HTTP: no user
+// lookup, so a node restart followed by every client reconnecting at once costs the database nothing.
+// Principals built from a token are cached for a short while (never past the token's exp), and every
+// CONNECT goes through a node-wide and a per-user rate limit first; a CONNECT over either limit gets a
+// STOMP ERROR frame and the client retries later.
+@Component
+public class StompConnectAuthenticator {
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocations tokenRevocations;
+
+    private final RateLimit perNode;
+    private final AtomicLong nodeBucket = RateLimit.newBucket();
+    private final RateLimit perUser;
+    private final Cache<Long, AtomicLong> userBuckets;
+    private final Cache<String, Principal> principals;
+
+    private final LongAdder authenticated = new LongAdder();
+    private final LongAdder anonymous = new LongAdder();
+    private final LongAdder rejectedNode = new LongAdder();
+    private final LongAdder rejectedUser = new LongAdder();
+
+    private record Principal(UsernamePasswordAuthenticationToken authentication, String familyId, long expiresAtMillis) {
+    }
+
+    public StompConnectAuthenticator(JwtUtil jwtUtil, TokenRevocations tokenRevocations,
+                                     @Value("${security.ws-connect.node.per-second:200}") int nodePerSecond,
+                                     @Value("${security.ws-connect.node.burst:1000}") int nodeBurst,
+                                     @Value("${security.ws-connect.user.per-minute:30}") int userPerMinute,
+                                     @Value("${security.ws-connect.user.burst:10}") int userBurst,
+                                     @Value("${security.ws-connect.principal-cache.ttl:60s}") Duration principalTtl,
+                                     @Value("${security.ws-connect.principal-cache.max-size:50000}") long maxSize) {
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocations = tokenRevocations;
+        this.perNode = RateLimit.of(nodePerSecond * 60, nodeBurst);
+        this.perUser = RateLimit.of(userPerMinute, userBurst);
+        this.userBuckets = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofNanos(perUser.refillNanos()))
+                .build();
+        long ttlNanos = principalTtl.toNanos();
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Principal>() {
+                    @Override
+                    public long expireAfterCreate(String token, Principal principal, long currentTime) {
+                        long remainingMillis = principal.expiresAtMillis() - System.currentTimeMillis();
+                        return Math.min(ttlNanos, TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0)));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Principal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Principal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    // The user for a CONNECT's Authorization header, or null to let it connect anonymously (no or invalid
+    // token, as before). Throws when the CONNECT is over a rate limit; the message goes into the ERROR frame.
+    public UsernamePasswordAuthenticationToken authenticate(String authHeader) {
+        long retryNanos = perNode.take(nodeBucket);
+        if (retryNanos > 0) {
+            rejectedNode.increment();
+            throw tooMany(retryNanos);
+        }
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            anonymous.increment();
+            return null;
+        }
+
+        String token = authHeader.substring(7);
+        Principal principal = principals.getIfPresent(token);
+        if (principal == null) {
+            principal = fromClaims(token);
+            if (principal == null) {
+                anonymous.increment();
+                return null;
+            }
+            principals.put(token, principal);
+        }
+        // Checked on every CONNECT, cached or not, so a logged-out session cannot come back
+        if (tokenRevocations.isRevoked(principal.familyId())) {
+            anonymous.increment();
+            return null;
+        }
+
+        AuthenticatedUser user = (AuthenticatedUser) principal.authentication().getPrincipal();
+        retryNanos = perUser.take(userBuckets.get(user.id(), k -> RateLimit.newBucket()));
+        if (retryNanos > 0) {
+            rejectedUser.increment();
+            throw tooMany(retryNanos);
+        }
+        authenticated.increment();
+        return principal.authentication();
+    }
+
+    // Same rules as JwtFilter: a verified access token (not a refresh token) that carries the user id
+    private Principal fromClaims(String token) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        if (claims.getSubject() == null || userId == null || claims.getExpiration() == null
+                || JwtUtil.REFRESH_TYPE.equals(claims.get(JwtUtil.TYPE_CLAIM, String.class))) {
+            return null;
+        }
+        String role = claims.get("role", String.class);
+        List<SimpleGrantedAuthority> authorities = role == null
+                ? List.of()
+                : List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(userId, claims.getSubject(), role), null, authorities);
+        return new Principal(authentication, claims.get(JwtUtil.FAMILY_CLAIM, String.class),
+                claims.getExpiration().getTime());
+    }
+
+    private static MessageDeliveryException tooMany(long retryNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryNanos) + 1);
+        return new MessageDeliveryException("Too many connection attempts, try again in " + seconds + "s");
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats cacheStats = principals.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("authenticated", authenticated.sum());
+        result.put("anonymous", anonymous.sum());
+        result.put("rejectedPerNode", rejectedNode.sum());
+        result.put("rejectedPerUser", rejectedUser.sum());
+        result.put("cachedPrincipals", principals.estimatedSize());
+        result.put("principalCacheHitRate", cacheStats.hitRate());
+        result.put("trackedUsers", userBuckets.estimatedSize());
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.faite_assessment.backend.Security;
+
+import com.faite_assessment.backend.Repositories.RevokedTokenRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// Deny-list of token ids, persisted in revoked_tokens and mirrored in a Bloom filter. Almost every
+// check is answered "not revoked" by the filter alone; only filter hits (revoked ids and the odd
+// false positive) go to the database, and those answers are cached briefly.
+// Other nodes' revocations are picked up by a periodic incremental sync.
+@Component
+@Slf4j
+public class TokenRevocations {
+
+    private static final int PAGE_SIZE = 5000;
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedTokenRepository repository;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+    private final Cache<String, Boolean> confirmed;
+
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime lastSync;
+
+    public TokenRevocations(RevokedTokenRepository repository,
+                            @Value("${security.jwt.revocations.expected-entries:1000000}") long expectedEntries,
+                            @Value("${security.jwt.revocations.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${security.jwt.revocations.sync-interval:30s}") Duration syncInterval) {
+        this.repository = repository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        // A "not revoked" answer may be this stale, the same bound the sync gives other nodes
+        this.confirmed = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(syncInterval)
+                .build();
+    }
+
+    // Loaded before the app serves traffic, so a revoked family is never accepted because of a cold start
+    @PostConstruct
+    public void load() {
+        rebuild();
+    }
+
+    public boolean isRevoked(String id) {
+        if (id == null || !filter.mightContain(id)) {
+            return false;
+        }
+        return confirmed.get(id, repository::existsById);
+    }
+
+    // Adds the id; true if it was new, false if someone had already revoked (or used) it
+    public boolean revoke(String id, Instant expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean added = repository.insertIfAbsent(id, LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()), now) == 1;
+        filter.put(id);
+        confirmed.put(id, true);
+        return added;
+    }
+
+    @Scheduled(initialDelayString = "${security.jwt.revocations.sync-interval:30s}",
+            fixedDelayString = "${security.jwt.revocations.sync-interval:30s}")
+    public void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        // Overlap covers clock skew between nodes and rows committed just after the previous query
+        List<String> ids = repository.findRevokedSince(lastSync.minus(SYNC_OVERLAP), now);
+        BloomFilter current = filter;
+        for (String id : ids) {
+            current.put(id);
+            confirmed.invalidate(id);
+        }
+        lastSync = now;
+    }
+
+    // A Bloom filter can't forget, so expired rows are dropped and the filter is rebuilt from what is left
+    @Scheduled(initialDelayString = "${security.jwt.revocations.purge-interval:1h}",
+            fixedDelayString = "${security.jwt.revocations.purge-interval:1h}")
+    public void purge() {
+        int removed = repository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> ids = new ArrayList<>();
+        String afterId = "";
+        while (true) {
+            List<String> page = repository.findActiveIds(afterId, now, Limit.of(PAGE_SIZE));
+            if (page.isEmpty()) {
+                break;
+            }
+            ids.addAll(page);
+            afterId = page.get(page.size() - 1);
+        }
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, 2L * ids.size()), falsePositiveRate);
+        ids.forEach(rebuilt::put);
+        filter = rebuilt;
+        lastSync = now;
+        // Revocations made while the pages were read went into the old filter; copy them over now
+        sync();
+        log.info("Token deny-list loaded: {} entries", ids.size());
+    }
+}
@@ -23,7 +23,7 @@ public class ActivityLogService {
         activityLogRepository.save(log);
     }
 
-    public List<ActivityLog> getLogsForUser(User user) {
-        return activityLogRepository.findByUserOrderByCreatedAtDesc(user);
+    public List<ActivityLog> getLogsForUser(Long userId) {
+        return activityLogRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
 }
@@ -0,0 +1,47 @@
+package com.faite_assessment.backend.Services;
+
+import com.faite_assessment.backend.Events.ProductChangedEvent;
+import com.faite_assessment.backend.Events.SellerChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Catalog-wide change counter behind the ETag of product list responses. Any product write (and any
+// change to a seller's name or picture, since listings embed both) moves it, so a client holding the
+// current tag can be answered 304 without running the list query. The boot time is part of the tag so
+// a restart, which resets the counter, can never make an old tag look current again.
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong counter = new AtomicLong();
+
+    // Last: the search indexes and the detail cache already show the change by the time the tag moves,
+    // so a list answered under the new tag can't have been built from stale data
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        counter.incrementAndGet();
+    }
+
+    // Same ordering as above: the search index has the new seller before the tag moves
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener
+    public void onSellerChanged(SellerChangedEvent event) {
+        counter.incrementAndGet();
+    }
+
+    // Read this before querying: a change racing the query then only costs one extra 200 later,
+    // instead of labelling old data with the new tag
+    public String etag() {
+        return "\"c" + epoch + "-" + counter.get() + "\"";
+    }
+
+    // For lists that differ per caller under the same URL; scope must be a plain token
+    public String etag(String scope) {
+        return "\"c" + epoch + "-" + counter.get() + "-" + scope + "\"";
+    }
+}
@@ -0,0 +1,171 @@
+package com.faite_assessment.backend.Services;
+
+import com.faite_assessment.backend.Dtos.ConversationSummaryDTO;
+import com.faite_assessment.backend.Dtos.CursorPage;
+import com.faite_assessment.backend.Dtos.PageCursor;
+import com.faite_assessment.backend.Entities.Message;
+import com.faite_assessment.backend.Repositories.ConversationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// The conversations read model behind the inbox. Writes happen inside MessageService's (or the write-behind
+// writer's) transactions and always touch the pair's row before any message row, so sends and mark-as-read
+// in one conversation queue up on that single row lock instead of deadlocking on each other.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationService {
+
+    static final int PREVIEW_LENGTH = 200;
+
+    // ConversationRepository.recordMessage for JDBC batches, reading each row's values through VALUES()
+    private static final String RECORD_MESSAGES = "INSERT INTO conversations (user_low_id, user_high_id, " +
+            "last_message_preview, last_sender_id, last_message_at, unread_low, unread_high) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "last_message_preview = IF(VALUES(last_message_at) >= last_message_at, VALUES(last_message_preview), last_message_preview), " +
+            "last_sender_id = IF(VALUES(last_message_at) >= last_message_at, VALUES(last_sender_id), last_sender_id), " +
+            "unread_low = unread_low + VALUES(unread_low), " +
+            "unread_high = unread_high + VALUES(unread_high), " +
+            "last_message_at = GREATEST(last_message_at, VALUES(last_message_at))";
+
+    private static final Comparator<ConversationSummaryDTO> NEWEST_FIRST =
+            Comparator.comparing(ConversationSummaryDTO::lastMessageAt)
+                    .thenComparing(ConversationSummaryDTO::conversationId)
+                    .reversed();
+
+    private static final Comparator<Message> LATEST_FIRST =
+            Comparator.comparing(Message::getTimestamp).thenComparing(Message::getId).reversed();
+
+    private final ConversationRepository conversationRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${messages.inbox.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${messages.inbox.max-page-size:100}")
+    private int maxPageSize;
+
+    // `message` is not saved yet: its timestamp is what the row will show
+    void recordMessage(Message message) {
+        Long senderId = message.getSender().getId();
+        Long receiverId = message.getReceiver().getId();
+        long low = Math.min(senderId, receiverId);
+        long high = Math.max(senderId, receiverId);
+        conversationRepository.recordMessage(low, high, preview(message.getContent()), senderId, message.getTimestamp(),
+                receiverId == low ? 1 : 0, receiverId == high && low != high ? 1 : 0);
+    }
+
+    // A write-behind batch: one row per pair with the pair's latest message and all its unread, sent as a
+    // single JDBC batch. Pairs go in ascending order, so the writer takes its row locks in the same order
+    // every time.
+    void recordMessages(List<Message> messages) {
+        Map<List<Long>, List<Message>> byPair = new TreeMap<>(
+                Comparator.<List<Long>, Long>comparing(pair -> pair.get(0)).thenComparing(pair -> pair.get(1)));
+        for (Message message : messages) {
+            long senderId = message.getSender().getId();
+            long receiverId = message.getReceiver().getId();
+            byPair.computeIfAbsent(List.of(Math.min(senderId, receiverId), Math.max(senderId, receiverId)),
+                    pair -> new ArrayList<>()).add(message);
+        }
+        List<Object[]> rows = new ArrayList<>(byPair.size());
+        byPair.forEach((pair, pairMessages) -> {
+            long low = pair.get(0);
+            Message last = pairMessages.get(0);
+            int unreadLow = 0;
+            int unreadHigh = 0;
+            for (Message message : pairMessages) {
+                if (LATEST_FIRST.compare(message, last) < 0) {
+                    last = message;
+                }
+                // A message to oneself counts once, on the low side
+                if (message.getReceiver().getId() == low) {
+                    unreadLow++;
+                } else {
+                    unreadHigh++;
+                }
+            }
+            rows.add(new Object[]{low, pair.get(1), preview(last.getContent()), last.getSender().getId(),
+                    last.getTimestamp(), unreadLow, unreadHigh});
+        });
+        jdbcTemplate.batchUpdate(RECORD_MESSAGES, rows);
+    }
+
+    private static String preview(String content) {
+        return content == null || content.length() <= PREVIEW_LENGTH ? content : content.substring(0, PREVIEW_LENGTH);
+    }
+
+    void markRead(Long readerId, Long partnerId) {
+        if (readerId <= partnerId) {
+            conversationRepository.clearUnreadOfLow(readerId, partnerId);
+        } else {
+            conversationRepository.clearUnreadOfHigh(readerId, partnerId);
+        }
+    }
+
+    // Most recent conversations first, then older ones via nextCursor (last message time and row id of
+    // the last entry). Two index range reads of at most a page each, whatever the user's message count.
+    public CursorPage<ConversationSummaryDTO> getInboxPage(Long userId, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+
+        LocalDateTime beforeTime = null;
+        Long beforeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            PageCursor after = PageCursor.decode(cursor);
+            beforeTime = after.getDateTime(0);
+            beforeId = after.getLong(1);
+        }
+        List<ConversationSummaryDTO> rows = inbox(userId, beforeTime, beforeId, Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<ConversationSummaryDTO> page = rows.subList(0, pageSize);
+        ConversationSummaryDTO last = page.get(pageSize - 1);
+        return new CursorPage<>(page, PageCursor.encode(last.lastMessageAt(), last.conversationId()));
+    }
+
+    // Every conversation, for the unpaged inbox response
+    public List<ConversationSummaryDTO> getInbox(Long userId) {
+        return inbox(userId, null, null, Limit.unlimited());
+    }
+
+    private List<ConversationSummaryDTO> inbox(Long userId, LocalDateTime beforeTime, Long beforeId, Limit limit) {
+        List<ConversationSummaryDTO> rows = new ArrayList<>(
+                conversationRepository.findInboxAsLow(userId, beforeTime, beforeId, limit));
+        rows.addAll(conversationRepository.findInboxAsHigh(userId, beforeTime, beforeId, limit));
+        rows.sort(NEWEST_FIRST);
+        return rows;
+    }
+
+    // Repairs every row from the messages table; idempotent
+    public int rebuild() {
+        return conversationRepository.rebuildFromMessages(PREVIEW_LENGTH);
+    }
+
+    // First start with the read model: fill it from the existing messages
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (conversationRepository.count() > 0) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        int rows = rebuild();
+        if (rows > 0) {
+            log.info("Backfilled conversations from existing messages ({} rows) in {} ms",
+                    rows, System.currentTimeMillis() - started);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.faite_assessment.backend.Services;
+
+import com.faite_assessment.backend.Events.ProductChangedEvent;
+import com.faite_assessment.backend.Repositories.ProductRepository;
+import com.faite_assessment.backend.Storage.BlobStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Builds the thumbnail, card and detail copies of product photos off the request thread. Each
+// upload is decoded once (subsampled during decoding when it is far larger than needed) and then
+// scaled down step by step, so grids load a small JPEG instead of the multi-megabyte original.
+// Work runs on a small fixed pool with a bounded queue; when the queue is full the product simply
+// keeps serving its original until the startup backfill picks it up.
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    private static final String VARIANT_URL_PREFIX = "/uploads/variants/";
+    private static final int BACKFILL_BATCH_SIZE = 200;
+
+    private final ProductRepository productRepository;
+    private final UploadStorage uploadStorage;
+    private final BlobStore blobStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolExecutor executor;
+
+    @Value("${products.images.thumbnail-size:160}")
+    private int thumbnailSize;
+
+    @Value("${products.images.card-size:480}")
+    private int cardSize;
+
+    @Value("${products.images.detail-size:1200}")
+    private int detailSize;
+
+    @Value("${products.images.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${products.images.backfill-enabled:true}")
+    private boolean backfillEnabled;
+
+    public ImageVariantService(ProductRepository productRepository,
+                               UploadStorage uploadStorage,
+                               BlobStore blobStore,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${products.images.workers:2}") int workers,
+                               @Value("${products.images.queue-capacity:200}") int queueCapacity) {
+        this.productRepository = productRepository;
+        this.uploadStorage = uploadStorage;
+        this.blobStore = blobStore;
+        this.eventPublisher = eventPublisher;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Queues the resize and returns immediately; false when the queue is full
+    public boolean submit(Long productId, String imageUrl) {
+        try {
+            executor.execute(() -> process(productId, imageUrl));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Image variant queue full, product {} keeps its original image for now", productId);
+            return false;
+        }
+    }
+
+    // Products uploaded before the pipeline existed, or dropped by a full queue, are resized one at a
+    // time on a single background thread so the backfill never competes with new uploads for the pool
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (!backfillEnabled) {
+            return;
+        }
+        Thread thread = new Thread(this::backfill, "image-variants-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void backfill() {
+        long lastId = 0L;
+        int processed = 0;
+        while (!executor.isShutdown()) {
+            List<Object[]> batch = productRepository.findImagesWithoutVariants(lastId, Limit.of(BACKFILL_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Object[] row : batch) {
+                lastId = (Long) row[0];
+                if (process(lastId, (String) row[1])) {
+                    processed++;
+                }
+            }
+        }
+        if (processed > 0) {
+            log.info("Image variant backfill finished: {} products", processed);
+        }
+    }
+
+    private boolean process(Long productId, String imageUrl) {
+        String source = uploadStorage.keyOf(imageUrl);
+        if (source == null) {
+            log.debug("No upload to resize for product {}: {}", productId, imageUrl);
+            return false;
+        }
+
+        // Content-addressed uploads keep one shared set of variants next to the original, so a
+        // re-uploaded photo is never resized twice; older uploads get per-product names
+        boolean shared = uploadStorage.digestOf(imageUrl).isPresent();
+        String prefix = shared
+                ? imageUrl.substring(0, imageUrl.lastIndexOf('.'))
+                : VARIANT_URL_PREFIX + productId;
+        String detailUrl = prefix + "-detail.jpg";
+        String cardUrl = prefix + "-card.jpg";
+        String thumbnailUrl = prefix + "-thumb.jpg";
+
+        try {
+            if (!shared || !allExist(detailUrl, cardUrl, thumbnailUrl)) {
+                BufferedImage original = decode(source, detailSize);
+                if (original == null) {
+                    log.warn("Unsupported image format for product {}: {}", productId, imageUrl);
+                    return false;
+                }
+
+                // Each size is scaled from the previous one, so the full-size pixels are only touched once
+                BufferedImage detail = scaleToFit(original, detailSize);
+                BufferedImage card = scaleToFit(detail, cardSize);
+                BufferedImage thumbnail = scaleToFit(card, thumbnailSize);
+
+                writeJpeg(detail, detailUrl);
+                writeJpeg(card, cardUrl);
+                writeJpeg(thumbnail, thumbnailUrl);
+            }
+
+            if (productRepository.updateImageVariants(productId, thumbnailUrl, cardUrl, detailUrl) == 0) {
+                // Deleted while we were resizing; shared variants may still be used by other products
+                if (!shared) {
+                    for (String url : List.of(detailUrl, cardUrl, thumbnailUrl)) {
+                        blobStore.delete(uploadStorage.keyOf(url));
+                    }
+                }
+                return false;
+            }
+            productRepository.findById(productId)
+                    .ifPresent(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)));
+            return true;
+        } catch (NoSuchFileException e) {
+            log.debug("No upload to resize for product {}: {}", productId, imageUrl);
+            return false;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not build image variants for product {}", productId, e);
+            return false;
+        }
+    }
+
+    private boolean allExist(String... urls) throws IOException {
+        for (String url : urls) {
+            if (blobStore.stat(uploadStorage.keyOf(url)).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BufferedImage decode(String key, int largestSize) throws IOException {
+        try (InputStream blob = blobStore.open(key, 0, -1);
+             ImageInputStream in = ImageIO.createImageInputStream(blob)) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                // Skip source pixels while decoding, but keep at least twice the largest variant for a clean downscale
+                int step = Math.max(1, longest / (largestSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fits the image inside size x size without upscaling. Halving repeatedly before the final
+    // bilinear pass avoids the aliasing of one large bilinear step.
+    private static BufferedImage scaleToFit(BufferedImage image, int size) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) size / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = image;
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            width /= 2;
+            height /= 2;
+            current = draw(current, width, height);
+        }
+        if (current.getType() == BufferedImage.TYPE_INT_RGB && width == targetWidth && height == targetHeight) {
+            return current;
+        }
+        return draw(current, targetWidth, targetHeight);
+    }
+
+    // JPEG has no alpha channel, so transparent areas are flattened onto white
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    // Written to a staging file and then published, so a reader never sees a half-written variant
+    private void writeJpeg(BufferedImage image, String url) throws IOException {
+        Path temp = uploadStorage.newStagingFile();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            blobStore.put(uploadStorage.keyOf(url), temp, "image/jpeg");
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.faite_assessment.backend.Services;
 
+import com.faite_assessment.backend.Dtos.ConversationSummaryDTO;
+import com.faite_assessment.backend.Dtos.CursorPage;
+import com.faite_assessment.backend.Dtos.PageCursor;
 import com.faite_assessment.backend.Entities.Message;
 import com.faite_assessment.backend.Entities.Product;
 import com.faite_assessment.backend.Entities.User;
+import com.faite_assessment.backend.Events.UnreadCountChangedEvent;
 import com.faite_assessment.backend.Repositories.MessageRepository;
 import com.faite_assessment.backend.Repositories.ProductRepository;
 import com.faite_assessment.backend.Repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.LinkedHashSet; // Import LinkedHashSet
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -21,8 +29,55 @@ public class MessageService {
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final ConversationService conversationService;
+    private final UnreadCounters unreadCounters;
+    private final MessageWriteBehind messageWriteBehind;
+    private final ApplicationEventPublisher eventPublisher;
 
+    // Newest first, the order conversation pages are walked in
+    private static final Comparator<Message> NEWEST_FIRST =
+            Comparator.comparing(Message::getTimestamp).thenComparing(Message::getId).reversed();
+
+    @Value("${messages.conversation.default-page-size:30}")
+    private int defaultPageSize;
+
+    @Value("${messages.conversation.max-page-size:100}")
+    private int maxPageSize;
+
+    @Transactional
     public Message sendMessage(String senderEmail, Long receiverId, Long productId, String content) {
+        Message message = newMessage(senderEmail, receiverId, productId, content);
+
+        // Conversation row first (see ConversationService), then the message, in one transaction
+        conversationService.recordMessage(message);
+        Message saved = messageRepository.save(message);
+        eventPublisher.publishEvent(UnreadCountChangedEvent.received(message.getReceiver().getId(), message.getReceiver().getEmail()));
+        return saved;
+    }
+
+    public boolean isWriteBehind() {
+        return messageWriteBehind.isEnabled();
+    }
+
+    // Write-behind mode: the message has its id and may be delivered to the receiver right away; the
+    // sender is only told once `committed` completes
+    public MessageWriteBehind.Queued queueMessage(String senderEmail, Long receiverId, Long productId, String content) {
+        return messageWriteBehind.submit(newMessage(senderEmail, receiverId, productId, content));
+    }
+
+    public Message awaitCommitted(MessageWriteBehind.Queued queued) {
+        return messageWriteBehind.await(queued);
+    }
+
+    // Write-behind mode: messages the reader has already been shown may still be queued. Called before
+    // markAsRead, outside its transaction, so they are in the table when it runs.
+    public void flushQueuedMessages() {
+        if (messageWriteBehind.isEnabled()) {
+            messageWriteBehind.flush();
+        }
+    }
+
+    private Message newMessage(String senderEmail, Long receiverId, Long productId, String content) {
         User sender = userRepository.findByEmail(senderEmail)
                 .orElseThrow(() -> new RuntimeException("Sender not found"));
         User receiver = userRepository.findById(receiverId)
@@ -38,39 +93,69 @@ public class MessageService {
         message.setReceiver(receiver);
         message.setProduct(product);
         message.setContent(content);
-
-        return messageRepository.save(message);
+        message.setTimestamp(LocalDateTime.now());
+        return message;
     }
 
-    public List<Message> getConversation(String email1, Long userId2) {
-        User user2 = userRepository.findById(userId2)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return messageRepository.findConversation(email1, user2.getEmail());
+    public List<Message> getConversation(Long userId1, Long userId2) {
+        return messageRepository.findConversation(userId1, userId2);
     }
 
-    public List<User> getInbox(String myEmail) {
-        // 1. Get messages ordered by NEWEST first
-        List<Message> messages = messageRepository.findAllBySenderEmailOrReceiverEmailOrderByTimestampDesc(myEmail, myEmail);
-
-        // 2. Extract unique partners using LinkedHashSet to maintain order
-        Set<User> partners = new LinkedHashSet<>();
+    // The latest `size` messages between two users, then older pages via nextCursor, which is the
+    // (timestamp, id) of the oldest message handed out so far. Items within a page are oldest first,
+    // ready to be prepended to what the client already shows. Every page costs the same however long
+    // the thread is: one index range read per direction, merged here.
+    public CursorPage<Message> getConversationPage(Long myId, Long otherId, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        Limit limit = Limit.of(pageSize + 1);
 
-        for (Message m : messages) {
-            if (m.getSender().getEmail().equals(myEmail)) {
-                partners.add(m.getReceiver());
-            } else {
-                partners.add(m.getSender());
+        // Notes to self are one direction; querying both would return every message twice
+        boolean bothDirections = !myId.equals(otherId);
+        List<Message> rows = new ArrayList<>();
+        if (cursor == null || cursor.isBlank()) {
+            rows.addAll(messageRepository.findLatestSent(myId, otherId, limit));
+            if (bothDirections) {
+                rows.addAll(messageRepository.findLatestSent(otherId, myId, limit));
+            }
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            LocalDateTime beforeTime = after.getDateTime(0);
+            long beforeId = after.getLong(1);
+            rows.addAll(messageRepository.findSentBefore(myId, otherId, beforeTime, beforeId, limit));
+            if (bothDirections) {
+                rows.addAll(messageRepository.findSentBefore(otherId, myId, beforeTime, beforeId, limit));
             }
         }
+        rows.sort(NEWEST_FIRST);
 
-        return new ArrayList<>(partners);
+        String next = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            Message oldest = rows.get(pageSize - 1);
+            next = PageCursor.encode(oldest.getTimestamp(), oldest.getId());
+        }
+        return new CursorPage<>(rows.reversed(), next);
+    }
+
+    public CursorPage<ConversationSummaryDTO> getInboxPage(Long myId, String cursor, Integer size) {
+        return conversationService.getInboxPage(myId, cursor, size);
     }
 
-    public long getUnreadCount(String email) {
-        return messageRepository.countByReceiverEmailAndIsReadFalse(email);
+    public List<ConversationSummaryDTO> getInbox(Long myId) {
+        return conversationService.getInbox(myId);
     }
 
-    public void markAsRead(Long senderId, String myEmail) {
-        messageRepository.markMessagesAsRead(senderId, myEmail);
+    // From memory; the badge is kept current by pushes to /user/queue/unread
+    public long getUnreadCount(Long userId) {
+        return unreadCounters.get(userId);
+    }
+
+    @Transactional
+    public void markAsRead(Long senderId, Long myId, String myEmail) {
+        conversationService.markRead(myId, senderId);
+        int read = messageRepository.markMessagesAsRead(senderId, myId);
+        if (read > 0) {
+            eventPublisher.publishEvent(UnreadCountChangedEvent.read(myId, myEmail, read));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,289 @@
+package com.faite_assessment.backend.Services;
+
+import com.faite_assessment.backend.Entities.Message;
+import com.faite_assessment.backend.Events.UnreadCountChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Optional write-behind for chat messages (messages.write-behind.enabled). A message gets its id from an
+// in-memory sequence, so it can be delivered straight away, and waits in a bounded queue for the writer
+// thread. The writer takes everything queued so far and commits it as one transaction: conversation rows
+// first (one upsert per pair, see ConversationService), then the messages as one JDBC batch. Whatever
+// arrives while a commit runs goes into the next one, so throughput follows the batch size instead of
+// commit latency. `committed` completes only after the commit, and the sender hears back from there;
+// if the message cannot be saved it completes exceptionally and the receiver has it retracted.
+// With the queue full a send waits up to offer-timeout, then gets a 503.
+// Ids continue from MAX(id) at startup, so this assumes a single node, like the in-memory STOMP broker.
+@Service
+@Slf4j
+public class MessageWriteBehind {
+
+    public record Queued(Message message, CompletableFuture<Message> committed) {
+    }
+
+    private static final String INSERT = "INSERT INTO messages (id, sender_id, receiver_id, product_id, content, " +
+            "is_read, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ConversationService conversationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final ArrayBlockingQueue<Queued> queue;
+    private final int maxBatch;
+    private final Duration offerTimeout;
+    private final Duration commitTimeout;
+
+    private final AtomicLong ids = new AtomicLong();
+    private volatile boolean running;
+    private Thread writer;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder commitNanos = new LongAdder();
+    private final AtomicLong maxCommitNanos = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+
+    public MessageWriteBehind(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ConversationService conversationService,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${messages.write-behind.enabled:false}") boolean enabled,
+                              @Value("${messages.write-behind.queue-capacity:10000}") int queueCapacity,
+                              @Value("${messages.write-behind.max-batch:500}") int maxBatch,
+                              @Value("${messages.write-behind.offer-timeout:1s}") Duration offerTimeout,
+                              @Value("${messages.write-behind.commit-timeout:10s}") Duration commitTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.conversationService = conversationService;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        this.maxBatch = Math.max(maxBatch, 1);
+        this.offerTimeout = offerTimeout;
+        this.commitTimeout = commitTimeout;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        ids.set(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM messages", Long.class));
+        running = true;
+        writer = new Thread(this::drain, "message-writer");
+        writer.start();
+        log.info("Message write-behind on, ids continue after {}", ids.get());
+    }
+
+    // Gives `message` its id and queues it; it may be delivered as soon as this returns
+    public Queued submit(Message message) {
+        if (!running) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Messaging is not available, try again shortly");
+        }
+        message.setId(ids.incrementAndGet());
+        Queued queued = new Queued(message, new CompletableFuture<>());
+        enqueue(queued);
+        submitted.increment();
+        return queued;
+    }
+
+    // Blocks until everything queued before this call has been written or given up on. A reader has
+    // been shown messages that may still be queued; marking them read has to wait for them.
+    public void flush() {
+        if (!running) {
+            return;
+        }
+        // A barrier: a queue entry without a message, completed once the writer gets past it
+        Queued barrier = new Queued(null, new CompletableFuture<>());
+        enqueue(barrier);
+        try {
+            barrier.committed().get(commitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Messages are still being saved, try again shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Messages are still being saved, try again shortly");
+        }
+    }
+
+    private void enqueue(Queued queued) {
+        try {
+            if (!queue.offer(queued, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                rejectedQueueFull.increment();
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many messages being sent, try again shortly");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Message not sent, try again");
+        }
+    }
+
+    // Blocks until the message is committed
+    public Message await(Queued queued) {
+        try {
+            return queued.committed().get(commitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Message is still being saved, check the conversation before resending");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Message is still being saved, check the conversation before resending");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Saving the message failed", e.getCause());
+        }
+    }
+
+    private void drain() {
+        List<Queued> batch = new ArrayList<>(maxBatch);
+        // Keeps going after shutdown() until the queue is empty
+        while (running || !queue.isEmpty()) {
+            Queued first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatch - 1);
+            List<Queued> messages = batch.stream().filter(queued -> queued.message() != null).toList();
+            if (!messages.isEmpty()) {
+                write(messages);
+            }
+            for (Queued queued : batch) {
+                if (queued.message() == null) {
+                    queued.committed().complete(null);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<Queued> batch) {
+        long started = System.nanoTime();
+        try {
+            commit(batch.stream().map(Queued::message).toList());
+        } catch (RuntimeException e) {
+            // One bad message (its receiver just deleted, say) must not take the rest of the batch with it
+            if (batch.size() > 1) {
+                log.warn("Writing {} messages failed, retrying them one by one", batch.size(), e);
+                for (Queued queued : batch) {
+                    write(List.of(queued));
+                }
+                return;
+            }
+            failed.increment();
+            log.warn("Could not save message {}", batch.get(0).message().getId(), e);
+            // The receiver has seen it already: whoever delivered it takes it back (MessageController)
+            batch.get(0).committed().completeExceptionally(e);
+            return;
+        }
+        long took = System.nanoTime() - started;
+        commitNanos.add(took);
+        maxCommitNanos.accumulateAndGet(took, Math::max);
+        maxBatchSize.accumulateAndGet(batch.size(), Math::max);
+        batches.increment();
+        written.add(batch.size());
+
+        Map<Long, UnreadCountChangedEvent> unread = new LinkedHashMap<>();
+        for (Queued queued : batch) {
+            Message message = queued.message();
+            unread.merge(message.getReceiver().getId(),
+                    UnreadCountChangedEvent.received(message.getReceiver().getId(), message.getReceiver().getEmail()),
+                    (a, b) -> new UnreadCountChangedEvent(a.userId(), a.email(), a.delta() + b.delta()));
+            queued.committed().complete(message);
+        }
+        unread.values().forEach(eventPublisher::publishEvent);
+    }
+
+    private void commit(List<Message> messages) {
+        transactionTemplate.executeWithoutResult(status -> {
+            conversationService.recordMessages(messages);
+            jdbcTemplate.batchUpdate(INSERT, messages, messages.size(), (statement, message) -> {
+                statement.setLong(1, message.getId());
+                statement.setLong(2, message.getSender().getId());
+                statement.setLong(3, message.getReceiver().getId());
+                if (message.getProduct() == null) {
+                    statement.setNull(4, Types.BIGINT);
+                } else {
+                    statement.setLong(4, message.getProduct().getId());
+                }
+                statement.setString(5, message.getContent());
+                statement.setBoolean(6, message.isRead());
+                statement.setObject(7, message.getTimestamp());
+            });
+        });
+    }
+
+    public Map<String, Object> stats() {
+        long batchCount = batches.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("queued", queue.size());
+        result.put("queueRemainingCapacity", queue.remainingCapacity());
+        result.put("submitted", submitted.sum());
+        result.put("written", written.sum());
+        result.put("batches", batchCount);
+        result.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) written.sum() / batchCount);
+        result.put("maxBatchSize", maxBatchSize.get());
+        result.put("averageCommitMs", batchCount == 0 ? 0.0 : commitNanos.sum() / 1_000_000.0 / batchCount);
+        result.put("maxCommitMs", maxCommitNanos.get() / 1_000_000.0);
+        result.put("failed", failed.sum());
+        result.put("rejectedQueueFull", rejectedQueueFull.sum());
+        return result;
+    }
+
+    // Whatever is queued still gets written, before the database goes away
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        List<Queued> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Queued queued : left) {
+            queued.committed().completeExceptionally(new IllegalStateException("Shutting down"));
+        }
+        if (!left.isEmpty()) {
+            log.warn("{} queued messages were not saved before shutdown", left.size());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.faite_assessment.backend.Services;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadByteCountLimitException;
+import org.apache.commons.fileupload2.core.FileUploadException;
+import org.apache.commons.fileupload2.core.FileUploadFileCountLimitException;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Streams multipart/form-data bodies (Spring's own multipart handling is switched off). File parts go
+// straight from the socket into UploadStorage, so nothing is buffered in memory or spooled to a temp
+// part first; the small text parts are kept as strings. Size caps are enforced while reading, and a
+// request whose Content-Length is already over the cap is refused before any of the body is read.
+// At most max-concurrent bodies are read at once; others wait up to queue-timeout in a bounded queue.
+@Service
+public class MultipartUploads {
+
+    // Text parts are JSON or single values; anything bigger is not a form field we know about
+    private static final int MAX_FIELD_BYTES = 64 * 1024;
+    private static final int MAX_PARTS = 10;
+
+    private final UploadStorage uploadStorage;
+    private final long maxFileSize;
+    private final long maxRequestSize;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+    private final Semaphore permits;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder rejectedTooLarge = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder filesStored = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    // Text fields by part name, and the stored URL of each file part. Every URL holds a reference in
+    // UploadStorage that the caller keeps (by saving it on an entity) or gives back with discard().
+    public record Form(Map<String, String> fields, Map<String, String> files) {
+
+        public String field(String name) {
+            return fields.get(name);
+        }
+
+        public String file(String name) {
+            return files.get(name);
+        }
+    }
+
+    public MultipartUploads(UploadStorage uploadStorage,
+                            @Value("${uploads.max-file-size:10MB}") DataSize maxFileSize,
+                            @Value("${uploads.max-request-size:12MB}") DataSize maxRequestSize,
+                            @Value("${uploads.max-concurrent:4}") int maxConcurrent,
+                            @Value("${uploads.max-queued:16}") int maxQueued,
+                            @Value("${uploads.queue-timeout:5s}") Duration queueTimeout) {
+        this.uploadStorage = uploadStorage;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxRequestSize = maxRequestSize.toBytes();
+        this.maxQueued = maxQueued;
+        this.queueTimeout = queueTimeout;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    // Parts named in `fileParts` must be images and are stored; other parts are read as UTF-8 text.
+    // An empty file part (a file input left blank) is treated as absent.
+    public Form read(HttpServletRequest request, Set<String> fileParts) throws IOException {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Expected multipart/form-data");
+        }
+        long declaredLength = request.getContentLengthLong();
+        if (declaredLength > maxRequestSize) {
+            rejectedTooLarge.increment();
+            throw tooLarge();
+        }
+
+        acquire();
+        Map<String, String> fields = new HashMap<>();
+        Map<String, String> files = new HashMap<>();
+        boolean complete = false;
+        try {
+            JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+            upload.setMaxSize(maxRequestSize);
+            upload.setMaxFileSize(maxFileSize);
+            upload.setMaxFileCount(MAX_PARTS);
+
+            FileItemInputIterator parts = upload.getItemIterator(request);
+            while (parts.hasNext()) {
+                FileItemInput part = parts.next();
+                String name = part.getFieldName();
+                if (name == null) {
+                    continue;
+                }
+                if (fileParts.contains(name)) {
+                    if (part.getName() == null || part.getName().isEmpty()) {
+                        continue;
+                    }
+                    // Checked from the part headers, before a single byte of the file is read
+                    String contentType = part.getContentType();
+                    if (contentType == null || !contentType.startsWith("image/")) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only image files are allowed");
+                    }
+                    try (InputStream in = part.getInputStream()) {
+                        String previous = files.put(name, uploadStorage.store(in));
+                        if (previous != null) {
+                            uploadStorage.release(previous);
+                        }
+                    }
+                    filesStored.increment();
+                } else {
+                    try (InputStream in = part.getInputStream()) {
+                        byte[] value = in.readNBytes(MAX_FIELD_BYTES + 1);
+                        if (value.length > MAX_FIELD_BYTES) {
+                            throw new ResponseStatusException(HttpStatus.CONTENT_TOO_LARGE, "Form field '" + name + "' is too large");
+                        }
+                        fields.put(name, new String(value, StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            if (declaredLength > 0) {
+                bytesReceived.add(declaredLength);
+            }
+            complete = true;
+            return new Form(fields, files);
+        } catch (FileUploadByteCountLimitException e) {
+            rejectedTooLarge.increment();
+            throw new ResponseStatusException(HttpStatus.CONTENT_TOO_LARGE,
+                    "Image is larger than " + DataSize.ofBytes(maxFileSize).toMegabytes() + "MB");
+        } catch (FileUploadFileCountLimitException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many form parts");
+        } catch (FileUploadSizeException e) {
+            rejectedTooLarge.increment();
+            throw tooLarge();
+        } catch (FileUploadException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed multipart request");
+        } finally {
+            if (!complete) {
+                failed.increment();
+                files.values().forEach(uploadStorage::release);
+            }
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    // Gives back the references of a form whose files ended up unused
+    public void discard(Form form) {
+        form.files().values().forEach(uploadStorage::release);
+    }
+
+    private void acquire() {
+        long started = System.nanoTime();
+        boolean acquired = permits.tryAcquire();
+        if (!acquired) {
+            if (waiting.incrementAndGet() > maxQueued) {
+                waiting.decrementAndGet();
+                rejectedQueueFull.increment();
+                throw busy();
+            }
+            try {
+                acquired = permits.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        long waited = System.nanoTime() - started;
+        if (!acquired) {
+            rejectedTimeout.increment();
+            throw busy();
+        }
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        active.incrementAndGet();
+        accepted.increment();
+    }
+
+    private ResponseStatusException tooLarge() {
+        return new ResponseStatusException(HttpStatus.CONTENT_TOO_LARGE,
+                "Upload is larger than " + DataSize.ofBytes(maxRequestSize).toMegabytes() + "MB");
+    }
+
+    private static ResponseStatusException busy() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many uploads in progress, try again shortly");
+    }
+
+    public Map<String, Object> stats() {
+        long acceptedCount = accepted.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("active", active.get());
+        result.put("waiting", waiting.get());
+        result.put("availablePermits", permits.availablePermits());
+        result.put("accepted", acceptedCount);
+        result.put("rejectedQueueFull", rejectedQueueFull.sum());
+        result.put("rejectedTimeout", rejectedTimeout.sum());
+        result.put("rejectedTooLarge", rejectedTooLarge.sum());
+        result.put("failed", failed.sum());
+        result.put("filesStored", filesStored.sum());
+        result.put("bytesReceived", bytesReceived.sum());
+        result.put("averageWaitMs", acceptedCount == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / acceptedCount);
+        result.put("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        return result;
+    }
+}
@@ -3,10 +3,12 @@ package com.faite_assessment.backend.Services;
 import com.faite_assessment.backend.Entities.Order;
 import com.faite_assessment.backend.Entities.Product;
 import com.faite_assessment.backend.Entities.User;
+import com.faite_assessment.backend.Events.ProductEngagementEvent;
 import com.faite_assessment.backend.Repositories.OrderRepository;
 import com.faite_assessment.backend.Repositories.ProductRepository;
 import com.faite_assessment.backend.Repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import java.util.List;
@@ -19,6 +21,8 @@ public class OrderService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate; // For Real-time notifications
+    private final ProductDetailCache productDetailCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Order createOrder(String buyerEmail, Long productId, String address, String phone, String paymentMethod) {
         User buyer = userRepository.findByEmail(buyerEmail)
@@ -42,6 +46,10 @@ public class OrderService {
 
         Order savedOrder = orderRepository.save(order);
 
+        // An order is where a listing's availability changes hands; don't keep serving the pre-order copy
+        productDetailCache.invalidate(productId);
+        eventPublisher.publishEvent(ProductEngagementEvent.ordered(productId));
+
         // --- REAL-TIME NOTIFICATION ---
         // We send a message to the seller's specific queue
         String notificationMessage = "New Order! " + buyer.getName() + " ordered " + product.getTitle();
@@ -0,0 +1,62 @@
+package com.faite_assessment.backend.Services;
+
+import com.faite_assessment.backend.Entities.Product;
+import com.faite_assessment.backend.Events.ProductChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Bounded near-cache for GET /api/products/{id}. Caffeine's size eviction uses W-TinyLFU
+// admission, so a burst of one-off views cannot push out the products everyone keeps opening.
+// Entries are dropped on every ProductChangedEvent; the TTL bounds staleness of the embedded seller.
+@Component
+public class ProductDetailCache {
+
+    private final Cache<Long, Product> cache;
+
+    public ProductDetailCache(@Value("${products.detail-cache.max-size:10000}") long maxSize,
+                              @Value("${products.detail-cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Returns the cached product or loads it; a loader exception is passed through and nothing is cached
+    public Product get(Long id, Function<Long, Product> loader) {
+        return cache.get(id, loader);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    @Order(1)
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.invalidate(event.productId());
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        result.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+}
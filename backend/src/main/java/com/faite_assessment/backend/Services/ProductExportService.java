@@ -0,0 +1,114 @@
+package com.faite_assessment.backend.Services;
+
+import com.faite_assessment.backend.Dtos.ProductExportRow;
+import com.faite_assessment.backend.Repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Writes the whole catalog to an output stream one keyset batch at a time. Each batch is a short
+// query on its own connection, so neither the heap nor a pooled connection is held for the length
+// of the download, and a slow client only slows the export down. That relies on no session being open
+// around the call: the export endpoint is left out of open-session-in-view (WebConfig).
+@Service
+@RequiredArgsConstructor
+public class ProductExportService {
+
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private static final String CSV_HEADER = "id,title,description,price,category,condition,saleStatus,imageUrl," +
+            "phoneNum,createdAt,sellerId,sellerName,sellerEmail\r\n";
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${products.export.batch-size:1000}")
+    private int batchSize;
+
+    // Returns the number of products written. The stream is flushed after every batch but not closed.
+    public long export(ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        long lastId = 0L;
+        long count = 0;
+        while (true) {
+            List<ProductExportRow> batch = productRepository.findExportRowsAfter(lastId, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (ProductExportRow row : batch) {
+                if (format == ExportFormat.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            }
+            writer.flush();
+            count += batch.size();
+            lastId = batch.get(batch.size() - 1).id();
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsv(Writer writer, ProductExportRow row) throws IOException {
+        Object[] values = {row.id(), row.title(), row.description(), row.price(), row.category(), row.condition(),
+                row.saleStatus(), row.imageUrl(), row.phoneNum(), row.createdAt(), row.sellerId(), row.sellerName(),
+                row.sellerEmail()};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting. User-entered text starting with = + - @ is prefixed with ' so a
+    // spreadsheet opening the file shows it instead of evaluating it as a formula.
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
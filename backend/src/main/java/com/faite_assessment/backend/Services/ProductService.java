@@ -1,16 +1,42 @@
 package com.faite_assessment.backend.Services;
 
+import com.faite_assessment.backend.Dtos.CursorPage;
+import com.faite_assessment.backend.Dtos.FacetedPage;
+import com.faite_assessment.backend.Dtos.PageCursor;
+import com.faite_assessment.backend.Dtos.ProductFilter;
 import com.faite_assessment.backend.Dtos.ProductRequestDTO;
+import com.faite_assessment.backend.Dtos.ProductResponseDTO;
 import com.faite_assessment.backend.Entities.Product;
 import com.faite_assessment.backend.Entities.User;
+import com.faite_assessment.backend.Events.ProductChangedEvent;
+import com.faite_assessment.backend.Events.ProductEngagementEvent;
 import com.faite_assessment.backend.Models.Category;
+import com.faite_assessment.backend.Models.ProductCondition;
+import com.faite_assessment.backend.Models.ProductSort;
+import com.faite_assessment.backend.Repositories.ProductListingQueries;
 import com.faite_assessment.backend.Repositories.ProductRepository;
 import com.faite_assessment.backend.Repositories.UserRepository;
+import com.faite_assessment.backend.Search.ProductFacetIndex;
+import com.faite_assessment.backend.Search.ProductSearchIndex;
+import com.faite_assessment.backend.Search.TitleSuggester;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +44,27 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final ProductDetailCache detailCache;
+    private final TitleSuggester titleSuggester;
+    private final CatalogVersion catalogVersion;
+    private final UploadStorage uploadStorage;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final String RANK_CURSOR = "r";
+    private static final String FACET_CURSOR = "f";
+    private static final String PRICE_ASC_CURSOR = "pa";
+    private static final String PRICE_DESC_CURSOR = "pd";
+
+    @Value("${products.browse.default-page-size:24}")
+    private int defaultPageSize;
+
+    @Value("${products.browse.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${products.suggest.max-limit:20}")
+    private int maxSuggestions;
 
     public Product addProduct(ProductRequestDTO dto, String email) {
         User user = userRepository.findByEmail(email)
@@ -35,11 +82,13 @@ public class ProductService {
         product.setUser(user);
         product.setCreatedAt(LocalDateTime.now());
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
     }
 
-    public List<Product> getMyProducts(String email) {
-        return productRepository.findByUserEmail(email);
+    public List<ProductResponseDTO> getMyProducts(String email) {
+        return productRepository.findListingsByUserEmail(email);
     }
 
     public Product updateProduct(Long id, ProductRequestDTO dto, String email) {
@@ -58,19 +107,192 @@ public class ProductService {
         product.setSaleStatus(dto.getSaleStatus());
         product.setPhoneNum(dto.getPhoneNum());
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
     }
     // ... inside ProductService class
 
     // Fetch all available products with filters
-    public List<Product> getAllProducts(String keyword, Category category) {
-        return productRepository.searchProducts(keyword, category);
+    public List<ProductResponseDTO> getAllProducts(String keyword, Category category) {
+        if (hasKeyword(keyword) && searchIndex.isReady()) {
+            return searchIndex.search(keyword, category);
+        }
+        return productRepository.findListings(ProductFilter.of(keyword, category), ProductSort.NEWEST, null, Limit.unlimited());
+    }
+
+    // Cursor-paged variant of getAllProducts. Every sort seeks on (sort key, id), so deep pages cost the same
+    // as the first. A null sort means relevance for keyword searches and newest first otherwise.
+    public CursorPage<ProductResponseDTO> browseProducts(ProductFilter filter, ProductSort sort, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+
+        // Keyword searches are ranked by relevance in memory, so their cursor is a rank offset
+        if (sort == null && hasKeyword(filter.keyword()) && searchIndex.isReady()) {
+            return searchPage(filter, cursor, pageSize);
+        }
+        if (sort == null) {
+            sort = ProductSort.NEWEST;
+        }
+
+        ProductListingQueries.ListingSeek after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            PageCursor decoded = PageCursor.decode(cursor);
+            if (sort == ProductSort.NEWEST) {
+                after = new ProductListingQueries.ListingSeek(decoded.getDateTime(0), null, decoded.getLong(1));
+            } else {
+                if (!priceCursorTag(sort).equals(decoded.get(0))) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+                }
+                after = new ProductListingQueries.ListingSeek(null, decoded.getDouble(1), decoded.getLong(2));
+            }
+        }
+
+        // Fetch one extra row to find out whether another page exists
+        List<ProductResponseDTO> rows = productRepository.findListings(filter, sort, after, Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<ProductResponseDTO> page = rows.subList(0, pageSize);
+        ProductResponseDTO last = page.get(pageSize - 1);
+        String next = sort == ProductSort.NEWEST
+                ? PageCursor.encode(last.createdAt(), last.id())
+                : PageCursor.encode(priceCursorTag(sort), last.price(), last.id());
+        return new CursorPage<>(page, next);
+    }
+
+    // Price cursors are tagged with their direction so one can't be replayed against the other sort
+    private static String priceCursorTag(ProductSort sort) {
+        return sort == ProductSort.PRICE_ASC ? PRICE_ASC_CURSOR : PRICE_DESC_CURSOR;
+    }
+
+    // Facet mode: filtering and counts come from the in-memory bitmaps, only the page rows hit the DB.
+    // Results are newest (highest id) first; keyword matches are intersected in, not ranked.
+    public FacetedPage<ProductResponseDTO> browseWithFacets(String keyword, Category category, ProductCondition condition,
+                                                 String priceBucket, String cursor, Integer size) {
+        if (!facetIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Facet index is still building");
+        }
+        int pageSize = pageSize(size);
+
+        Long beforeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            PageCursor after = PageCursor.decode(cursor);
+            beforeId = after.getLong(1);
+            // The facet index keys products by int bit position, so no real id lies outside this range
+            if (!FACET_CURSOR.equals(after.get(0)) || beforeId < 0 || beforeId > Integer.MAX_VALUE) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+
+        List<Long> keywordMatches = null;
+        if (hasKeyword(keyword)) {
+            List<ProductResponseDTO> hits = searchIndex.isReady()
+                    ? searchIndex.search(keyword, null)
+                    : productRepository.findListings(ProductFilter.of(keyword, null), ProductSort.NEWEST, null, Limit.unlimited());
+            keywordMatches = hits.stream().map(ProductResponseDTO::id).toList();
+        }
+
+        ProductFacetIndex.FacetResult result = facetIndex.query(
+                new ProductFacetIndex.FacetQuery(category, condition, priceBucket, keywordMatches),
+                beforeId, pageSize + 1);
+
+        List<Long> ids = result.ids();
+        String next = null;
+        if (ids.size() > pageSize) {
+            ids = ids.subList(0, pageSize);
+            next = PageCursor.encode(FACET_CURSOR, ids.get(pageSize - 1));
+        }
+
+        Map<Long, ProductResponseDTO> byId = productRepository.findListingsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductResponseDTO::id, Function.identity()));
+        List<ProductResponseDTO> items = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+
+        return new FacetedPage<>(items, next, result.total(), result.facets());
+    }
+
+    private CursorPage<ProductResponseDTO> searchPage(ProductFilter filter, String cursor, int pageSize) {
+        int offset = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            PageCursor after = PageCursor.decode(cursor);
+            long position = after.getLong(1);
+            if (!RANK_CURSOR.equals(after.get(0)) || position < 0 || position > Integer.MAX_VALUE) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            offset = (int) position;
+        }
+
+        // The index only knows about category; the remaining filters are applied to the ranked hits
+        List<ProductResponseDTO> hits = searchIndex.search(filter.keyword(), filter.category()).stream()
+                .filter(hit -> matches(filter, hit))
+                .toList();
+        if (offset >= hits.size()) {
+            return new CursorPage<>(List.of(), null);
+        }
+        int end = Math.min(offset + pageSize, hits.size());
+        String next = end < hits.size() ? PageCursor.encode(RANK_CURSOR, end) : null;
+        return new CursorPage<>(hits.subList(offset, end), next);
+    }
+
+    private static boolean matches(ProductFilter filter, ProductResponseDTO hit) {
+        if (filter.condition() != null && hit.condition() != filter.condition()) {
+            return false;
+        }
+        if (filter.minPrice() != null && (hit.price() == null || hit.price() < filter.minPrice())) {
+            return false;
+        }
+        if (filter.maxPrice() != null && (hit.price() == null || hit.price() > filter.maxPrice())) {
+            return false;
+        }
+        return filter.sellerId() == null || (hit.seller() != null && filter.sellerId().equals(hit.seller().id()));
+    }
+
+    private int pageSize(Integer size) {
+        return size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    private static boolean hasKeyword(String keyword) {
+        return keyword != null && !keyword.isBlank();
+    }
+
+    // Typeahead completions for the search box, served from the in-memory title trie
+    public List<String> suggestTitles(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank() || !titleSuggester.isReady()) {
+            return List.of();
+        }
+        return titleSuggester.suggest(prefix, Math.max(1, Math.min(limit, maxSuggestions)));
     }
 
     // Fetch single product details (Public view)
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        Product product = detailCache.get(id, key -> productRepository.findById(key)
+                .orElseThrow(() -> new RuntimeException("Product not found")));
+        eventPublisher.publishEvent(ProductEngagementEvent.view(id));
+        return product;
+    }
+
+    // Validator for list responses; changes whenever any product or seller profile does
+    public String catalogEtag() {
+        return catalogVersion.etag();
+    }
+
+    // Validator for a seller's own listings; the URL is the same for every seller, so the tag says whose list it is
+    public String sellerListEtag(String email) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(email.getBytes(StandardCharsets.UTF_8));
+            return catalogVersion.etag(HexFormat.of().formatHex(digest, 0, 12));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Validator for one product's detail response: the product row plus the seller fields embedded in it
+    public String detailEtag(Product product) {
+        long sellerVersion = product.getUser() == null ? 0 : product.getUser().getVersion();
+        return "\"p" + product.getId() + "-" + product.getVersion() + "-" + sellerVersion + "\"";
+    }
+
+    public Map<String, Object> getDetailCacheStats() {
+        return detailCache.stats();
     }
     // Inside ProductService class
 
@@ -84,22 +306,29 @@ public class ProductService {
         }
 
         productRepository.delete(product);
+        uploadStorage.release(product.getImageUrl());
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
 
 
     }
     // Inside ProductService.java
 
     // For Admin: Get ALL products in the system
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public List<ProductResponseDTO> getAllProducts() {
+        return productRepository.findAllListings();
+    }
+
+    public long countProducts() {
+        return productRepository.count();
     }
 
     // For Admin: Delete ANY product by ID (Bypasses ownership check)
     public void adminDeleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            throw new RuntimeException("Product not found");
-        }
-        productRepository.deleteById(id);
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        productRepository.delete(product);
+        uploadStorage.release(product.getImageUrl());
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
     // For Admin: Get Stats
@@ -0,0 +1,141 @@
+package com.faite_assessment.backend.Services;
+
+import com.faite_assessment.backend.Dtos.ProductResponseDTO;
+import com.faite_assessment.backend.Events.ProductEngagementEvent;
+import com.faite_assessment.backend.Models.SaleStatus;
+import com.faite_assessment.backend.Repositories.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// "Trending now": views, wishlist adds and orders over a sliding window, newer activity counting more.
+// Events land in the current time bucket with no locking (one LongAdder per product per bucket).
+// A scheduled refresh rotates buckets, applies exponential decay per bucket, keeps the top k in a
+// min-heap and loads their listing rows once, so the endpoint itself only reads a volatile list.
+@Service
+@Slf4j
+public class TrendingService {
+
+    private final ProductRepository productRepository;
+    private final long bucketMillis;
+    private final long windowMillis;
+    private final double halfLifeMillis;
+    private final int maxItems;
+
+    private static final class Bucket {
+        final long start;
+        final ConcurrentHashMap<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+        Bucket(long start) {
+            this.start = start;
+        }
+    }
+
+    private volatile Bucket current = new Bucket(System.currentTimeMillis());
+    // Newest first; only the refresh thread touches it
+    private final Deque<Bucket> closed = new ArrayDeque<>();
+
+    private volatile List<ProductResponseDTO> trending = List.of();
+
+    public TrendingService(ProductRepository productRepository,
+                           @Value("${products.trending.bucket:1m}") Duration bucket,
+                           @Value("${products.trending.window:6h}") Duration window,
+                           @Value("${products.trending.half-life:1h}") Duration halfLife,
+                           @Value("${products.trending.max-items:50}") int maxItems) {
+        this.productRepository = productRepository;
+        this.bucketMillis = bucket.toMillis();
+        this.windowMillis = window.toMillis();
+        this.halfLifeMillis = halfLife.toMillis();
+        this.maxItems = maxItems;
+    }
+
+    @EventListener
+    public void onEngagement(ProductEngagementEvent event) {
+        Map<Long, LongAdder> counts = current.counts;
+        LongAdder counter = counts.get(event.productId());
+        if (counter == null) {
+            counter = counts.computeIfAbsent(event.productId(), id -> new LongAdder());
+        }
+        counter.add(event.signal().weight());
+    }
+
+    public List<ProductResponseDTO> getTrending(int limit) {
+        List<ProductResponseDTO> snapshot = trending;
+        return snapshot.subList(0, Math.min(Math.max(limit, 0), snapshot.size()));
+    }
+
+    @Scheduled(fixedDelayString = "${products.trending.refresh-interval:5s}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+
+        // A writer still holding the old bucket just lands in the newest closed one, which is still counted
+        if (now - current.start >= bucketMillis) {
+            closed.addFirst(current);
+            current = new Bucket(now);
+        }
+        while (!closed.isEmpty() && now - closed.peekLast().start >= windowMillis) {
+            closed.removeLast();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        accumulate(scores, current, now);
+        for (Bucket bucket : closed) {
+            accumulate(scores, bucket, now);
+        }
+        if (scores.isEmpty()) {
+            trending = List.of();
+            return;
+        }
+
+        // Bounded min-heap: the weakest of the current top candidates sits on top and is evicted first.
+        // Twice maxItems so products that turn out to be sold or deleted can be skipped.
+        int candidates = maxItems * 2;
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(candidates + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > candidates) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, Double>> top = new ArrayList<>(heap);
+        top.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()));
+
+        Map<Long, ProductResponseDTO> rows = productRepository.findListingsByIdIn(
+                        top.stream().map(Map.Entry::getKey).toList()).stream()
+                .collect(Collectors.toMap(ProductResponseDTO::id, Function.identity()));
+        List<ProductResponseDTO> ranked = new ArrayList<>(maxItems);
+        for (Map.Entry<Long, Double> entry : top) {
+            ProductResponseDTO row = rows.get(entry.getKey());
+            if (row != null && row.saleStatus() == SaleStatus.AVAILABLE) {
+                ranked.add(row);
+                if (ranked.size() == maxItems) {
+                    break;
+                }
+            }
+        }
+        trending = List.copyOf(ranked);
+    }
+
+    // Each bucket is weighted by its age at the midpoint: a half-life ago counts half as much as now
+    private void accumulate(Map<Long, Double> scores, Bucket bucket, long now) {
+        double age = Math.max(0, now - (bucket.start + bucketMillis / 2.0));
+        double decay = Math.pow(0.5, age / halfLifeMillis);
+        bucket.counts.forEach((productId, count) -> scores.merge(productId, count.sum() * decay, Double::sum));
+    }
+}
@@ -0,0 +1,89 @@
+package com.faite_assessment.backend.Services;
+
+import com.faite_assessment.backend.Events.UnreadCountChangedEvent;
+import com.faite_assessment.backend.Repositories.ConversationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Unread message totals per user, kept in memory so the navbar badge costs no query. A counter is seeded
+// from the conversations read model the first time it is needed, then moved by UnreadCountChangedEvents
+// once their transaction has committed, and every new value is pushed to the user's /user/queue/unread.
+// Reads and updates are one hash lookup and one CAS on a per-user AtomicLong, no locks. Counters are
+// dropped after resync-interval, so a change racing with a seed is corrected at the next seed.
+// Single node, like the in-memory STOMP broker the pushes go through.
+@Service
+public class UnreadCounters {
+
+    public static final String DESTINATION = "/queue/unread";
+
+    private final ConversationRepository conversationRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+    private final Cache<Long, AtomicLong> counters;
+
+    private final LongAdder seeded = new LongAdder();
+    private final LongAdder pushed = new LongAdder();
+
+    public UnreadCounters(ConversationRepository conversationRepository,
+                          SimpMessagingTemplate messagingTemplate,
+                          SimpUserRegistry userRegistry,
+                          @Value("${messages.unread.max-tracked:200000}") long maxTracked,
+                          @Value("${messages.unread.resync-interval:10m}") Duration resyncInterval) {
+        this.conversationRepository = conversationRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.userRegistry = userRegistry;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterWrite(resyncInterval)
+                .build();
+    }
+
+    public long get(Long userId) {
+        return counters.get(userId, this::load).get();
+    }
+
+    private AtomicLong load(Long userId) {
+        seeded.increment();
+        return new AtomicLong(conversationRepository.sumUnreadAsLow(userId)
+                + conversationRepository.sumUnreadAsHigh(userId));
+    }
+
+    // Users who are neither tracked nor connected are skipped: nothing to update, nobody to tell
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUnreadCountChanged(UnreadCountChangedEvent event) {
+        boolean connected = userRegistry.getUser(event.email()) != null;
+        AtomicLong counter = counters.getIfPresent(event.userId());
+        long value;
+        if (counter != null) {
+            value = counter.updateAndGet(current -> Math.max(0, current + event.delta()));
+        } else if (connected) {
+            // Seeded after the commit, so the change is already counted
+            value = get(event.userId());
+        } else {
+            return;
+        }
+        if (connected) {
+            messagingTemplate.convertAndSendToUser(event.email(), DESTINATION, value);
+            pushed.increment();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("trackedUsers", counters.estimatedSize());
+        result.put("seeded", seeded.sum());
+        result.put("pushed", pushed.sum());
+        return result;
+    }
+}
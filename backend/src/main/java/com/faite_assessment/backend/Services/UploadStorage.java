@@ -0,0 +1,363 @@
+package com.faite_assessment.backend.Services;
+
+import com.faite_assessment.backend.Entities.StoredBlob;
+import com.faite_assessment.backend.Repositories.StoredBlobRepository;
+import com.faite_assessment.backend.Storage.BlobStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Content-addressed store for uploaded images. Bytes are hashed while they are written to a staging
+// file, which is then published to the BlobStore as ab/cd/<sha256>.<ext>; uploading the same bytes
+// again finds the blob already there and only adds a reference (a store that doesn't check direct
+// uploads against their digest gets the bytes written again). Names are hex digests, so URLs are
+// plain ASCII and the content behind a URL never changes. URLs are /uploads/<key> whichever store is used.
+@Service
+@Slf4j
+public class UploadStorage {
+
+    private static final String URL_PREFIX = "/uploads/";
+    private static final Pattern CONTENT_URL =
+            Pattern.compile("^/uploads/([0-9a-f]{2})/([0-9a-f]{2})/([0-9a-f]{64})\\.[a-z0-9]+$");
+    // Originals and their resized copies: ab/cd/<sha256>.<ext> and ab/cd/<sha256>-<variant>.jpg
+    private static final Pattern CONTENT_KEY =
+            Pattern.compile("^([0-9a-f]{2})/([0-9a-f]{2})/([0-9a-f]{64})(-[a-z]+)?\\.[a-z0-9]+$");
+    private static final Pattern SHA256_HEX = Pattern.compile("^[0-9a-f]{64}$");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StoredBlobRepository blobRepository;
+    private final BlobStore blobStore;
+    // Default is inside the local upload directory, so publishing there is an atomic rename
+    private final Path staging;
+    private final long maxFileSize;
+    private final Duration presignTtl;
+
+    public record DirectUpload(String url, BlobStore.PresignedUpload upload) {
+    }
+
+    public UploadStorage(StoredBlobRepository blobRepository,
+                         BlobStore blobStore,
+                         @Value("${uploads.staging-dir:uploads/.incoming}") String staging,
+                         @Value("${uploads.max-file-size:10MB}") DataSize maxFileSize,
+                         @Value("${uploads.presign-ttl:10m}") Duration presignTtl) {
+        this.blobRepository = blobRepository;
+        this.blobStore = blobStore;
+        this.staging = Paths.get(staging);
+        this.maxFileSize = maxFileSize.toBytes();
+        this.presignTtl = presignTtl;
+    }
+
+    // Type is taken from the leading bytes rather than the client's filename or header,
+    // so identical bytes always map to the same name
+    private enum FileType {
+        JPEG("jpg", "image/jpeg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}, new byte[0]),
+        PNG("png", "image/png", new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, new byte[0]),
+        GIF("gif", "image/gif", new byte[]{'G', 'I', 'F', '8'}, new byte[0]),
+        // RIFF is a container (WAV and AVI are RIFF too); only RIFF....WEBP is an image
+        WEBP("webp", "image/webp", new byte[]{'R', 'I', 'F', 'F'}, new byte[]{'W', 'E', 'B', 'P'}),
+        OTHER("bin", "application/octet-stream", new byte[0], new byte[0]);
+
+        private static final int BRAND_OFFSET = 8;
+
+        final String extension;
+        final String contentType;
+        final byte[] magic;
+        // Container format id at BRAND_OFFSET, for types whose magic alone is not enough
+        final byte[] brand;
+
+        FileType(String extension, String contentType, byte[] magic, byte[] brand) {
+            this.extension = extension;
+            this.contentType = contentType;
+            this.magic = magic;
+            this.brand = brand;
+        }
+
+        static Optional<FileType> ofContentType(String contentType) {
+            for (FileType type : values()) {
+                if (type != OTHER && type.contentType.equalsIgnoreCase(contentType)) {
+                    return Optional.of(type);
+                }
+            }
+            return Optional.empty();
+        }
+
+        static FileType sniff(byte[] head, int length) {
+            for (FileType type : values()) {
+                if (type != OTHER && startsWith(head, length, 0, type.magic)
+                        && (type.brand.length == 0 || startsWith(head, length, BRAND_OFFSET, type.brand))) {
+                    return type;
+                }
+            }
+            return OTHER;
+        }
+
+        private static boolean startsWith(byte[] head, int length, int offset, byte[] expected) {
+            return length >= offset + expected.length
+                    && Arrays.equals(head, offset, offset + expected.length, expected, 0, expected.length);
+        }
+    }
+
+    // Stores the stream and takes one reference on it; the caller owns that reference until release(url).
+    // Anything but a JPEG, PNG, GIF or WebP is refused with 415 and nothing is kept.
+    public String store(InputStream input) throws IOException {
+        Path temp = newStagingFile();
+        try {
+            MessageDigest sha256 = newSha256();
+            byte[] head = new byte[12];
+            int headLength = 0;
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.TRUNCATE_EXISTING)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    if (headLength < head.length) {
+                        int copied = Math.min(read, head.length - headLength);
+                        System.arraycopy(buffer, 0, head, headLength, copied);
+                        headLength += copied;
+                    }
+                    sha256.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+
+            FileType type = FileType.sniff(head, headLength);
+            // The part's Content-Type is the client's word; these bytes are served as an image from our origin
+            if (type == FileType.OTHER) {
+                throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Only JPEG, PNG, GIF and WebP images are allowed");
+            }
+            String digest = HexFormat.of().formatHex(sha256.digest());
+            String key = keyFor(digest, type);
+            // Reference first, then publish: once acquire() returns, the sweeper can no longer remove
+            // the blob, so finding it already there means it stays
+            blobRepository.acquire(digest, type.extension, type.contentType, size, LocalDateTime.now());
+            try {
+                // A concurrent upload of the same bytes may win the race; the content is identical either way.
+                // A blob found there may have been PUT directly by a client with nothing checking it against
+                // the digest in its name, unless the store does that; these bytes were hashed here, so they replace it.
+                if (!blobStore.verifiesPresignedChecksums() || blobStore.stat(key).isEmpty()) {
+                    blobStore.put(key, temp, type.contentType);
+                }
+            } catch (IOException | RuntimeException e) {
+                blobRepository.release(digest, LocalDateTime.now());
+                throw e;
+            }
+            return URL_PREFIX + key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // First half of a direct upload: the client hashes the file itself and PUTs it straight to the store.
+    // Upload is null when those bytes are already stored, so there is nothing to send. Empty when the
+    // store can't take direct uploads; the client then sends the file in the multipart request instead.
+    public Optional<DirectUpload> presign(String sha256, String contentType, long size) {
+        String digest = sha256 == null ? "" : sha256.toLowerCase();
+        if (!SHA256_HEX.matcher(digest).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sha256 must be 64 hex characters");
+        }
+        FileType type = FileType.ofContentType(contentType)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only JPEG, PNG, GIF and WebP images are allowed"));
+        if (size <= 0 || size > maxFileSize) {
+            throw new ResponseStatusException(HttpStatus.CONTENT_TOO_LARGE,
+                    "Image is larger than " + DataSize.ofBytes(maxFileSize).toMegabytes() + "MB");
+        }
+
+        String key = keyFor(digest, type);
+        String url = URL_PREFIX + key;
+        try {
+            if (blobStore.stat(key).isPresent()) {
+                return Optional.of(new DirectUpload(url, null));
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Storage is unavailable", e);
+        }
+        return blobStore.presignPut(key, type.contentType, size, HexFormat.of().parseHex(digest), presignTtl)
+                .map(upload -> new DirectUpload(url, upload));
+    }
+
+    // Second half: takes a reference on a blob the client uploaded directly. Normally the store has already
+    // checked the bytes against the digest in the name and only the leading bytes are read back, to check
+    // they match the type; otherwise the whole blob is hashed here and removed if it doesn't match.
+    public String adopt(String url) {
+        String digest = digestOf(url)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not an uploaded image: " + url));
+        String key = url.substring(URL_PREFIX.length());
+        try {
+            BlobStore.BlobInfo info = blobStore.stat(key)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Image has not been uploaded yet"));
+            byte[] head;
+            try (InputStream in = blobStore.open(key, 0, blobStore.verifiesPresignedChecksums() ? 12 : -1)) {
+                head = in.readNBytes(12);
+                if (!blobStore.verifiesPresignedChecksums() && !digest.equals(sha256Of(head, in))) {
+                    blobStore.delete(key);
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uploaded image does not match its checksum");
+                }
+            }
+            FileType type = FileType.sniff(head, head.length);
+            if (type == FileType.OTHER || !url.endsWith("." + type.extension)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only JPEG, PNG, GIF and WebP images are allowed");
+            }
+            blobRepository.acquire(digest, type.extension, type.contentType, info.size(), LocalDateTime.now());
+            // The sweeper may have removed an old blob between the checks above and acquire()
+            if (blobStore.stat(key).isEmpty()) {
+                blobRepository.release(digest, LocalDateTime.now());
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Image has not been uploaded yet");
+            }
+            return url;
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Storage is unavailable", e);
+        }
+    }
+
+    // Drops one reference taken by store(). The file itself stays until nothing has used it for a while.
+    // URLs from before content addressing are not tracked and are ignored.
+    public void release(String url) {
+        digestOf(url).ifPresent(digest -> {
+            if (blobRepository.release(digest, LocalDateTime.now()) == 0) {
+                log.warn("Released upload {} had no references left", url);
+            }
+        });
+    }
+
+    public Optional<String> digestOf(String url) {
+        if (url == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = CONTENT_URL.matcher(url);
+        if (!matcher.matches() || !matcher.group(3).startsWith(matcher.group(1) + matcher.group(2))) {
+            return Optional.empty();
+        }
+        return Optional.of(matcher.group(3));
+    }
+
+    // Digest a content-addressed key (original or variant) belongs to
+    public Optional<String> digestOfKey(String key) {
+        Matcher matcher = CONTENT_KEY.matcher(key);
+        if (!matcher.matches() || !matcher.group(3).startsWith(matcher.group(1) + matcher.group(2))) {
+            return Optional.empty();
+        }
+        return Optional.of(matcher.group(3));
+    }
+
+    // Deletes a content-addressed blob nothing has taken or dropped a reference to since `cutoff`, and
+    // with the original goes its stored_blobs row. The row (or its gap) stays locked meanwhile, so an
+    // upload of the same bytes waits and then publishes them again. The caller has already established
+    // that no entity points at the digest; the reference count is not trusted for that.
+    @Transactional
+    public boolean removeIfUnused(String key, String digest, LocalDateTime cutoff) throws IOException {
+        Optional<StoredBlob> blob = blobRepository.lockByDigest(digest);
+        if (blob.isPresent() && (after(blob.get().getAcquiredAt(), cutoff) || after(blob.get().getReleasedAt(), cutoff))) {
+            return false;
+        }
+        blobStore.delete(key);
+        if (blob.isPresent() && key.equals(keyFor(digest, blob.get().getExtension()))) {
+            if (blob.get().getRefCount() > 0) {
+                log.info("Removing unreferenced upload {} whose count was still {}", key, blob.get().getRefCount());
+            }
+            blobRepository.delete(blob.get());
+        }
+        return true;
+    }
+
+    // Temp files left in the staging directory by uploads that never finished; returns bytes freed
+    public long removeStaleStagingFiles(Instant cutoff) throws IOException {
+        if (!Files.isDirectory(staging)) {
+            return 0;
+        }
+        long freed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(staging, "*.tmp")) {
+            for (Path file : files) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.lastModifiedTime().toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                    freed += attributes.size();
+                }
+            }
+        }
+        return freed;
+    }
+
+    private static boolean after(LocalDateTime time, LocalDateTime cutoff) {
+        return time != null && time.isAfter(cutoff);
+    }
+
+    // BlobStore key behind an /uploads/... URL, or null if the URL points anywhere else. Empty and
+    // dot-led segments are refused, which rules out traversal and hides the staging directory.
+    public String keyOf(String url) {
+        if (url == null || !url.startsWith(URL_PREFIX)) {
+            return null;
+        }
+        String key = url.substring(URL_PREFIX.length());
+        for (String segment : key.split("/", -1)) {
+            if (segment.isEmpty() || segment.startsWith(".") || segment.indexOf('\\') >= 0) {
+                return null;
+            }
+        }
+        return key;
+    }
+
+    // A new empty file to write an upload or a generated image into before it is published
+    public Path newStagingFile() throws IOException {
+        Files.createDirectories(staging);
+        return Files.createFile(staging.resolve(UUID.randomUUID() + ".tmp"));
+    }
+
+    private static String keyFor(String digest, FileType type) {
+        return keyFor(digest, type.extension);
+    }
+
+    private static String keyFor(String digest, String extension) {
+        return shardOf(digest) + "/" + digest + "." + extension;
+    }
+
+    // Hex SHA-256 of `head` followed by the rest of `in`
+    private static String sha256Of(byte[] head, InputStream in) throws IOException {
+        MessageDigest sha256 = newSha256();
+        sha256.update(head);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            sha256.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    // Two levels of 256 directories keep every directory small even with millions of files
+    private static String shardOf(String digest) {
+        return digest.substring(0, 2) + "/" + digest.substring(2, 4);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
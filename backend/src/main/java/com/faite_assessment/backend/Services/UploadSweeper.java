@@ -0,0 +1,240 @@
+package com.faite_assessment.backend.Services;
+
+import com.faite_assessment.backend.Repositories.ProductRepository;
+import com.faite_assessment.backend.Repositories.UserRepository;
+import com.faite_assessment.backend.Storage.BlobStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+// Mark-and-sweep over uploaded files. Mark pages through every image URL on products and every profile
+// picture; sweep walks the BlobStore and deletes what nothing points at, once it has been unused for the
+// grace period. Content-addressed files are marked by digest, which keeps their resized variants too.
+// Runs on its own thread, paced so it never competes with request traffic for disk or database.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadSweeper {
+
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final UploadStorage uploadStorage;
+    private final BlobStore blobStore;
+
+    @Value("${uploads.sweep.enabled:true}")
+    private boolean enabled;
+
+    @Value("${uploads.sweep.grace-period:24h}")
+    private Duration gracePeriod;
+
+    @Value("${uploads.sweep.batch-size:500}")
+    private int batchSize;
+
+    // Pause after every batch of rows read or files examined
+    @Value("${uploads.sweep.batch-pause:200ms}")
+    private Duration batchPause;
+
+    @Value("${uploads.sweep.max-deletes-per-second:20}")
+    private int maxDeletesPerSecond;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastReport = Map.of();
+
+    private static final class Report {
+        final Instant startedAt = Instant.now();
+        long referenced;
+        long scanned;
+        long scannedBytes;
+        long orphans;
+        long keptRecent;
+        long deleted;
+        long reclaimedBytes;
+        long errors;
+
+        Map<String, Object> toMap(String status) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("status", status);
+            result.put("startedAt", startedAt.toString());
+            result.put("durationMs", Duration.between(startedAt, Instant.now()).toMillis());
+            result.put("referenced", referenced);
+            result.put("scanned", scanned);
+            result.put("scannedBytes", scannedBytes);
+            result.put("orphans", orphans);
+            result.put("keptWithinGracePeriod", keptRecent);
+            result.put("deleted", deleted);
+            result.put("reclaimedBytes", reclaimedBytes);
+            result.put("errors", errors);
+            return result;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${uploads.sweep.initial-delay:10m}", fixedDelayString = "${uploads.sweep.interval:6h}")
+    public void scheduledSweep() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    // False when a sweep is already running. The scheduler has one thread shared with other jobs,
+    // so the sweep itself runs on a thread of its own.
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                sweep();
+            } finally {
+                running.set(false);
+            }
+        }, "upload-sweeper");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public Map<String, Object> lastReport() {
+        return lastReport;
+    }
+
+    private void sweep() {
+        Report report = new Report();
+        lastReport = report.toMap("marking");
+        try {
+            Instant cutoff = Instant.now().minus(gracePeriod);
+            Set<String> referenced = mark();
+            report.referenced = referenced.size();
+            if (referenced.isEmpty()) {
+                // More likely an empty or wrong database than a store where every file is garbage
+                log.warn("Upload sweep skipped: no uploads are referenced at all");
+                lastReport = report.toMap("skipped");
+                return;
+            }
+            lastReport = report.toMap("sweeping");
+
+            sweep(referenced, cutoff, report);
+            report.reclaimedBytes += uploadStorage.removeStaleStagingFiles(cutoff);
+
+            lastReport = report.toMap("finished");
+            log.info("Upload sweep: {} files scanned, {} orphans, {} deleted, {} bytes reclaimed, {} errors in {} ms",
+                    report.scanned, report.orphans, report.deleted, report.reclaimedBytes, report.errors,
+                    Duration.between(report.startedAt, Instant.now()).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastReport = report.toMap("interrupted");
+        } catch (IOException | RuntimeException e) {
+            log.warn("Upload sweep failed", e);
+            lastReport = report.toMap("failed");
+        }
+    }
+
+    // Digests of content-addressed uploads, plain keys for everything older
+    private Set<String> mark() throws InterruptedException {
+        Set<String> referenced = new HashSet<>();
+        long lastId = 0L;
+        while (true) {
+            List<Object[]> rows = productRepository.findImageReferences(lastId, Limit.of(batchSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Object[] row : rows) {
+                lastId = (Long) row[0];
+                for (int i = 1; i < row.length; i++) {
+                    markUrl(referenced, (String) row[i]);
+                }
+            }
+            Thread.sleep(batchPause);
+        }
+
+        lastId = 0L;
+        while (true) {
+            List<Object[]> rows = userRepository.findProfilePictures(lastId, Limit.of(batchSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Object[] row : rows) {
+                lastId = (Long) row[0];
+                markUrl(referenced, (String) row[1]);
+            }
+            Thread.sleep(batchPause);
+        }
+        return referenced;
+    }
+
+    private void markUrl(Set<String> referenced, String url) {
+        String key = uploadStorage.keyOf(url);
+        if (key != null) {
+            referenced.add(uploadStorage.digestOfKey(key).orElse(key));
+        }
+    }
+
+    private void sweep(Set<String> referenced, Instant cutoff, Report report) throws IOException, InterruptedException {
+        LocalDateTime releasedBefore = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+        long deletePause = maxDeletesPerSecond > 0 ? 1000L / maxDeletesPerSecond : 0;
+
+        try (Stream<BlobStore.BlobEntry> entries = blobStore.list()) {
+            Iterator<BlobStore.BlobEntry> iterator = entries.iterator();
+            int inBatch = 0;
+            while (iterator.hasNext()) {
+                BlobStore.BlobEntry entry = iterator.next();
+                report.scanned++;
+                report.scannedBytes += entry.size();
+                if (++inBatch == batchSize) {
+                    inBatch = 0;
+                    lastReport = report.toMap("sweeping");
+                    Thread.sleep(batchPause);
+                }
+
+                Optional<String> digest = uploadStorage.digestOfKey(entry.key());
+                if (referenced.contains(digest.orElse(entry.key()))) {
+                    continue;
+                }
+                report.orphans++;
+                // Also covers direct uploads that were never attached to a product, until they age out
+                if (entry.lastModified() > cutoff.toEpochMilli()) {
+                    report.keptRecent++;
+                    continue;
+                }
+
+                try {
+                    boolean removed;
+                    if (digest.isPresent()) {
+                        removed = uploadStorage.removeIfUnused(entry.key(), digest.get(), releasedBefore);
+                    } else {
+                        // Pre content-addressing files; nothing creates new references to these
+                        blobStore.delete(entry.key());
+                        removed = true;
+                    }
+                    if (removed) {
+                        report.deleted++;
+                        report.reclaimedBytes += entry.size();
+                        Thread.sleep(deletePause);
+                    } else {
+                        report.keptRecent++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    report.errors++;
+                    log.warn("Could not remove orphaned upload {}", entry.key(), e);
+                }
+            }
+        }
+    }
+}
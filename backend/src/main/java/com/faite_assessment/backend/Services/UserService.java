@@ -1,15 +1,20 @@
 package com.faite_assessment.backend.Services;
 
 import com.faite_assessment.backend.Entities.User;
+import com.faite_assessment.backend.Events.SellerChangedEvent;
 import com.faite_assessment.backend.Repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.faite_assessment.backend.Dtos.DashboardStats;
 import com.faite_assessment.backend.Repositories.OrderRepository;
 import com.faite_assessment.backend.Repositories.ProductRepository;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -17,6 +22,7 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
@@ -26,10 +32,26 @@ public class UserService {
         return userRepository.existsByEmail(email);
     }
 
+    // Refresh tokens issued before now stop working (see AuthController.refresh); saved with the user.
+    // Token iat is in whole seconds, so a token issued later in this same second still counts as newer.
+    public void endSessions(User user) {
+        user.setTokensValidAfter(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
     public User saveUser(User user) {
         return userRepository.save(user);
     }
 
+    // Profile edits: listings embed the seller's name and picture, so only a change to those is published
+    // (and moves the catalog ETag, see CatalogVersion). Other user writes leave every listing as it was.
+    public User saveProfile(User user, String previousName, String previousPicture) {
+        User saved = userRepository.save(user);
+        if (!Objects.equals(previousName, saved.getName()) || !Objects.equals(previousPicture, saved.getProfilePicture())) {
+            eventPublisher.publishEvent(SellerChangedEvent.of(saved));
+        }
+        return saved;
+    }
+
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
@@ -40,6 +62,10 @@ public class UserService {
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
+
+    public long countUsers() {
+        return userRepository.count();
+    }
     public User getUserByEmail(String email) {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
@@ -1,10 +1,13 @@
 package com.faite_assessment.backend.Services;
 
+import com.faite_assessment.backend.Dtos.ProductResponseDTO;
 import com.faite_assessment.backend.Entities.Product;
 import com.faite_assessment.backend.Entities.User;
+import com.faite_assessment.backend.Events.ProductEngagementEvent;
 import com.faite_assessment.backend.Repositories.ProductRepository;
 import com.faite_assessment.backend.Repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +19,7 @@ public class WishlistService {
 
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public void toggleWishlist(String email, Long productId) {
@@ -30,14 +34,13 @@ public class WishlistService {
             user.getFavoriteProducts().remove(product); // Unlike
         } else {
             user.getFavoriteProducts().add(product);    // Like
+            eventPublisher.publishEvent(ProductEngagementEvent.wishlisted(productId));
         }
 
         userRepository.save(user); // JPA updates the join table automatically
     }
 
-    public List<Product> getWishlist(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getFavoriteProducts();
+    public List<ProductResponseDTO> getWishlist(String email) {
+        return productRepository.findWishlistListings(email);
     }
 }
\ No newline at end of file
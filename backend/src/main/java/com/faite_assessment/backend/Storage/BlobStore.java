@@ -0,0 +1,57 @@
+package com.faite_assessment.backend.Storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Where uploaded bytes live. Keys are relative paths such as "ab/cd/<sha256>.jpg"; what they map to
+// (a file under the uploads directory, an object in a bucket) is up to the implementation, so every
+// backend node can share one bucket while /uploads/** URLs stay the same.
+public interface BlobStore {
+
+    record BlobInfo(long size, long lastModified) {
+    }
+
+    record BlobEntry(String key, long size, long lastModified) {
+    }
+
+    // A request the client sends itself, straight to the store; headers must be sent exactly as given
+    record PresignedUpload(String url, String method, Map<String, String> headers, Instant expiresAt) {
+    }
+
+    // Publishes a fully written local file under `key`, replacing any previous content.
+    // The staged file is consumed: moved into place or deleted once uploaded.
+    void put(String key, Path staged, String contentType) throws IOException;
+
+    Optional<BlobInfo> stat(String key) throws IOException;
+
+    // Streams `length` bytes from `offset` (length < 0 reads to the end);
+    // NoSuchFileException when there is no such blob
+    InputStream open(String key, long offset, long length) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    // Every blob, fetched lazily as the stream is consumed; close the stream when done
+    Stream<BlobEntry> list() throws IOException;
+
+    // The file behind `key` when the store is this machine's disk, so it can be sent with sendfile
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    // Lets a client upload exactly `size` bytes hashing to `sha256` under `key` without the bytes passing
+    // through this server. Empty when the store is local, where there is nothing to bypass.
+    default Optional<PresignedUpload> presignPut(String key, String contentType, long size, byte[] sha256, Duration ttl) {
+        return Optional.empty();
+    }
+
+    // True when the store itself rejects a presigned upload whose bytes don't match the given SHA-256
+    default boolean verifiesPresignedChecksums() {
+        return false;
+    }
+}
@@ -0,0 +1,273 @@
+package com.faite_assessment.backend.Storage;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Blobs as objects in an S3 bucket, or anything speaking the S3 API (MinIO, Ceph, R2...).
+// Large files are sent as a multipart upload whose parts go up in parallel, each read straight from
+// the staged file; reads are ranged GETs streamed back to the caller.
+@Slf4j
+public class S3BlobStore implements BlobStore, AutoCloseable {
+
+    private final S3Client s3;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final String prefix;
+    private final long multipartThreshold;
+    private final long partSize;
+    private final boolean presignChecksum;
+    private final ExecutorService partUploads;
+
+    public S3BlobStore(S3Client s3, S3Presigner presigner, String bucket, String prefix,
+                       long multipartThreshold, long partSize, int parallelism, boolean presignChecksum) {
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.prefix = prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/";
+        // S3 rejects parts under 5 MB (except the last one)
+        this.partSize = Math.max(partSize, 5L * 1024 * 1024);
+        this.multipartThreshold = Math.max(multipartThreshold, this.partSize);
+        this.presignChecksum = presignChecksum;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.partUploads = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "s3-part-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void put(String key, Path staged, String contentType) throws IOException {
+        try {
+            long size = Files.size(staged);
+            if (size < multipartThreshold) {
+                s3.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(prefix + key)
+                        .contentType(contentType)
+                        .contentLength(size)
+                        .build(), RequestBody.fromFile(staged));
+            } else {
+                putMultipart(prefix + key, staged, contentType, size);
+            }
+        } catch (S3Exception e) {
+            throw new IOException("Could not store " + key + " in bucket " + bucket, e);
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    private void putMultipart(String objectKey, Path staged, String contentType, long size) throws IOException {
+        String uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(objectKey)
+                .contentType(contentType)
+                .build()).uploadId();
+        try {
+            List<Future<CompletedPart>> pending = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long start = offset;
+                long length = Math.min(partSize, size - offset);
+                int number = partNumber;
+                pending.add(partUploads.submit(() -> uploadPart(objectKey, uploadId, number, staged, start, length)));
+            }
+
+            List<CompletedPart> parts = new ArrayList<>(pending.size());
+            for (Future<CompletedPart> part : pending) {
+                parts.add(part.get());
+            }
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(objectKey, uploadId);
+            throw new InterruptedIOException("Interrupted while uploading " + objectKey);
+        } catch (ExecutionException | RuntimeException e) {
+            abort(objectKey, uploadId);
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            throw new IOException("Multipart upload of " + objectKey + " failed", cause);
+        }
+    }
+
+    private CompletedPart uploadPart(String objectKey, String uploadId, int partNumber,
+                                     Path staged, long offset, long length) {
+        // The SDK asks for a fresh stream on every retry, so each attempt reopens the slice
+        RequestBody body = RequestBody.fromContentProvider(() -> {
+            try {
+                FileChannel channel = FileChannel.open(staged, StandardOpenOption.READ);
+                channel.position(offset);
+                return new BoundedInputStream(Channels.newInputStream(channel), length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, length, "application/octet-stream");
+
+        String etag = s3.uploadPart(UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(objectKey)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(length)
+                .build(), body).eTag();
+        return CompletedPart.builder().partNumber(partNumber).eTag(etag).build();
+    }
+
+    // Otherwise the uploaded parts are kept (and billed) until a lifecycle rule removes them
+    private void abort(String objectKey, String uploadId) {
+        try {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("Could not abort multipart upload {} of {}", uploadId, objectKey, e);
+        }
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(prefix + key)
+                    .build());
+            return Optional.of(new BlobInfo(head.contentLength(), head.lastModified().toEpochMilli()));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Could not read " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        if (length == 0) {
+            return InputStream.nullInputStream();
+        }
+        GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucket).key(prefix + key);
+        if (offset > 0 || length > 0) {
+            request.range("bytes=" + offset + "-" + (length < 0 ? "" : String.valueOf(offset + length - 1)));
+        }
+        try {
+            return s3.getObject(request.build());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw new IOException("Could not read " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+        } catch (S3Exception e) {
+            throw new IOException("Could not delete " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    // Pages of up to 1000 keys are requested as the stream is read
+    @Override
+    public Stream<BlobEntry> list() throws IOException {
+        try {
+            return s3.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build())
+                    .contents()
+                    .stream()
+                    .map(object -> new BlobEntry(object.key().substring(prefix.length()), object.size(),
+                            object.lastModified().toEpochMilli()));
+        } catch (S3Exception e) {
+            throw new IOException("Could not list bucket " + bucket, e);
+        }
+    }
+
+    // Content-Length and the SHA-256 checksum are part of the signature, so the store itself refuses
+    // a body of a different size or content; a key can only ever receive the bytes its name promises.
+    // Stores without flexible checksums (older MinIO, s3proxy) reject the header, so it can be turned off.
+    @Override
+    public Optional<PresignedUpload> presignPut(String key, String contentType, long size, byte[] sha256, Duration ttl) {
+        PutObjectRequest.Builder put = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(prefix + key)
+                .contentType(contentType)
+                .contentLength(size);
+        if (presignChecksum) {
+            put.checksumSHA256(Base64.getEncoder().encodeToString(sha256));
+        }
+        PresignedPutObjectRequest presigned = presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(ttl)
+                .putObjectRequest(put.build())
+                .build());
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        presigned.signedHeaders().forEach((name, values) -> {
+            // Browsers set Host themselves and refuse to send it
+            if (!name.equalsIgnoreCase("host")) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return Optional.of(new PresignedUpload(presigned.url().toString(), presigned.httpRequest().method().name(),
+                headers, presigned.expiration()));
+    }
+
+    @Override
+    public boolean verifiesPresignedChecksums() {
+        return presignChecksum;
+    }
+
+    @Override
+    public void close() {
+        partUploads.shutdownNow();
+        presigner.close();
+        s3.close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.faite_assessment.backend.Config;
+
+import com.faite_assessment.backend.Controllers.AdminController;
+import com.faite_assessment.backend.Controllers.AuthController;
+import com.faite_assessment.backend.Controllers.MessageController;
+import com.faite_assessment.backend.Controllers.UserController;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+// Paths come from the controllers' own mappings, so a pattern that names an endpoint which does not
+// exist fails here instead of silently matching nothing
+class WebConfigTest {
+
+    private static class Registry extends InterceptorRegistry {
+        MappedInterceptor openInView() {
+            assertEquals(1, getInterceptors().size());
+            return (MappedInterceptor) getInterceptors().get(0);
+        }
+    }
+
+    private final MappedInterceptor openInView = openInView();
+
+    @Test
+    void passwordEndpointsRunWithoutOpenInView() {
+        assertSkipped(AuthController.class, "login");
+        assertSkipped(AuthController.class, "register");
+        assertSkipped(AuthController.class, "resetPassword");
+        assertSkipped(UserController.class, "changePassword");
+    }
+
+    @Test
+    void sendingAMessageRunsWithoutOpenInView() {
+        assertSkipped(MessageController.class, "sendMessageRest");
+    }
+
+    @Test
+    void catalogExportRunsWithoutOpenInView() {
+        assertSkipped(AdminController.class, "exportProducts");
+    }
+
+    @Test
+    void otherEndpointsKeepOpenInView() {
+        assertTrue(openInView.matches(request(UserController.class, "getLoggedInUser")));
+        assertTrue(openInView.matches(request(MessageController.class, "markAsRead")));
+        assertTrue(openInView.matches(request(AdminController.class, "getAllProducts")));
+    }
+
+    private void assertSkipped(Class<?> controller, String method) {
+        MockHttpServletRequest request = request(controller, method);
+        assertFalse(openInView.matches(request), request.getRequestURI() + " should not hold a session");
+    }
+
+    private static MappedInterceptor openInView() {
+        Registry registry = new Registry();
+        new WebConfig(mock(EntityManagerFactory.class)).addInterceptors(registry);
+        return registry.openInView();
+    }
+
+    // Class-level path plus the handler's own, with any {variable} filled in
+    private static MockHttpServletRequest request(Class<?> controller, String methodName) {
+        Method method = Arrays.stream(controller.getMethods())
+                .filter(candidate -> candidate.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(controller.getSimpleName() + " has no " + methodName));
+        RequestMapping type = AnnotatedElementUtils.findMergedAnnotation(controller, RequestMapping.class);
+        RequestMapping handler = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+        String path = (type == null ? "" : type.path()[0]) + handler.path()[0];
+        MockHttpServletRequest request = new MockHttpServletRequest(
+                handler.method().length == 0 ? "GET" : handler.method()[0].name(), path.replaceAll("\\{[^}]+}", "1"));
+        ServletRequestPathUtils.parseAndCache(request);
+        return request;
+    }
+}
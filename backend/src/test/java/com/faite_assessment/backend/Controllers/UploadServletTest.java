@@ -0,0 +1,107 @@
+package com.faite_assessment.backend.Controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Range and conditional request handling, without a servlet container or a blob store
+class UploadServletTest {
+
+    private static final long MODIFIED = 1_700_000_000_000L;
+    private static final UploadServlet.FileInfo INFO = new UploadServlet.FileInfo(
+            1000, MODIFIED, "\"abc\"", "image/png", "public, max-age=31536000, immutable");
+
+    @Test
+    void rangeWithBothEnds() {
+        assertEquals(new UploadServlet.ByteRange(0, 99), UploadServlet.toRange("0", "99", 1000));
+        assertEquals(100, UploadServlet.toRange("0", "99", 1000).length());
+    }
+
+    @Test
+    void endPastTheFileIsCutToTheLastByte() {
+        assertEquals(new UploadServlet.ByteRange(900, 999), UploadServlet.toRange("900", "5000", 1000));
+    }
+
+    @Test
+    void openEndedRangeRunsToTheEnd() {
+        assertEquals(new UploadServlet.ByteRange(500, 999), UploadServlet.toRange("500", "", 1000));
+    }
+
+    @Test
+    void suffixRangeIsTheLastBytes() {
+        assertEquals(new UploadServlet.ByteRange(900, 999), UploadServlet.toRange("", "100", 1000));
+        // Longer than the file: the whole file
+        assertEquals(new UploadServlet.ByteRange(0, 999), UploadServlet.toRange("", "5000", 1000));
+    }
+
+    @Test
+    void unsatisfiableRanges() {
+        assertNull(UploadServlet.toRange("1000", "", 1000));
+        assertNull(UploadServlet.toRange("1000", "2000", 1000));
+        assertNull(UploadServlet.toRange("500", "100", 1000));
+        assertNull(UploadServlet.toRange("", "0", 1000));
+        assertNull(UploadServlet.toRange("", "", 1000));
+        assertNull(UploadServlet.toRange("", "10", 0));
+        assertNull(UploadServlet.toRange("0", "", 0));
+    }
+
+    @Test
+    void numbersTooLongForALongAreUnsatisfiable() {
+        assertNull(UploadServlet.toRange("99999999999999999999", "", 1000));
+        assertNull(UploadServlet.toRange("0", "99999999999999999999", 1000));
+        assertNull(UploadServlet.toRange("", "99999999999999999999", 1000));
+    }
+
+    @Test
+    void ifNoneMatchWithTheCurrentTag() {
+        assertTrue(UploadServlet.notModified(request("If-None-Match", "\"abc\""), INFO));
+        assertTrue(UploadServlet.notModified(request("If-None-Match", "\"old\", \"abc\""), INFO));
+        assertTrue(UploadServlet.notModified(request("If-None-Match", "*"), INFO));
+        assertFalse(UploadServlet.notModified(request("If-None-Match", "\"old\""), INFO));
+    }
+
+    @Test
+    void ifNoneMatchComparesWeakTagsWeakly() {
+        assertTrue(UploadServlet.notModified(request("If-None-Match", "W/\"abc\""), INFO));
+    }
+
+    @Test
+    void ifNoneMatchWinsOverIfModifiedSince() {
+        MockHttpServletRequest request = request("If-None-Match", "\"old\"");
+        request.addHeader("If-Modified-Since", MODIFIED + 60_000);
+        assertFalse(UploadServlet.notModified(request, INFO));
+    }
+
+    @Test
+    void ifModifiedSinceToTheSecond() {
+        assertTrue(UploadServlet.notModified(request("If-Modified-Since", MODIFIED), INFO));
+        assertTrue(UploadServlet.notModified(request("If-Modified-Since", MODIFIED + 60_000), INFO));
+        assertFalse(UploadServlet.notModified(request("If-Modified-Since", MODIFIED - 60_000), INFO));
+        assertFalse(UploadServlet.notModified(request("If-Modified-Since", "not a date"), INFO));
+        assertFalse(UploadServlet.notModified(new MockHttpServletRequest(), INFO));
+    }
+
+    @Test
+    void ifRangeNeedsTheCurrentStrongTagOrDate() {
+        assertTrue(UploadServlet.ifRangeMatches(new MockHttpServletRequest(), INFO));
+        assertTrue(UploadServlet.ifRangeMatches(request("If-Range", "\"abc\""), INFO));
+        assertFalse(UploadServlet.ifRangeMatches(request("If-Range", "\"old\""), INFO));
+        assertTrue(UploadServlet.ifRangeMatches(request("If-Range", MODIFIED), INFO));
+        assertFalse(UploadServlet.ifRangeMatches(request("If-Range", MODIFIED + 60_000), INFO));
+    }
+
+    @Test
+    void ifRangeNeverMatchesAWeakTag() {
+        assertFalse(UploadServlet.ifRangeMatches(request("If-Range", "W/\"abc\""), INFO));
+    }
+
+    private static MockHttpServletRequest request(String header, Object value) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/ab/cd/abc.png");
+        request.addHeader(header, value);
+        return request;
+    }
+}
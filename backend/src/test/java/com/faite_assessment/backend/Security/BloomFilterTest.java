@@ -0,0 +1,45 @@
+package com.faite_assessment.backend.Security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void everythingPutIsFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("family-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("family-" + i), "false negative for family-" + i);
+        }
+    }
+
+    @Test
+    void everythingPutIsFoundPastTheExpectedSize() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        for (int i = 0; i < 5_000; i++) {
+            filter.put("family-" + i);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(filter.mightContain("family-" + i), "false negative for family-" + i);
+        }
+    }
+
+    @Test
+    void falsePositivesStayNearTheTargetRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("family-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+    }
+}
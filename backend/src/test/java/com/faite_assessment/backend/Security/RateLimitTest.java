@@ -0,0 +1,88 @@
+package com.faite_assessment.backend.Security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against the real clock, with an interval long enough (100ms) that a few takes in a row
+// always land within the same one
+class RateLimitTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void ofSpreadsTheRateAndAllowsTheBurst() {
+        RateLimit limit = RateLimit.of(600, 3);
+        assertEquals(INTERVAL, limit.intervalNanos());
+        assertEquals(2 * INTERVAL, limit.toleranceNanos());
+        assertEquals(3 * INTERVAL, limit.refillNanos());
+    }
+
+    @Test
+    void newBucketAllowsTheBurstThenRefuses() {
+        RateLimit limit = RateLimit.of(600, 3);
+        AtomicLong bucket = RateLimit.newBucket();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limit.take(bucket), "take " + (i + 1) + " of the burst");
+        }
+        long wait = limit.take(bucket);
+        assertTrue(wait > 0 && wait <= INTERVAL, "wait was " + wait);
+    }
+
+    @Test
+    void refusedTakesDoNotUseUpTokens() {
+        RateLimit limit = RateLimit.of(600, 1);
+        AtomicLong bucket = RateLimit.newBucket();
+        assertEquals(0, limit.take(bucket));
+        long arrival = bucket.get();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.take(bucket) > 0);
+        }
+        assertEquals(arrival, bucket.get());
+    }
+
+    @Test
+    void oneTokenComesBackPerInterval() throws InterruptedException {
+        RateLimit limit = RateLimit.of(600, 3);
+        AtomicLong bucket = RateLimit.newBucket();
+        for (int i = 0; i < 3; i++) {
+            limit.take(bucket);
+        }
+        long wait = limit.take(bucket);
+        assertTrue(wait > 0);
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(0, limit.take(bucket));
+        assertTrue(limit.take(bucket) > 0, "only one token should have come back");
+    }
+
+    @Test
+    void idleBucketRefillsToTheFullBurst() throws InterruptedException {
+        RateLimit limit = RateLimit.of(600, 3);
+        AtomicLong bucket = RateLimit.newBucket();
+        for (int i = 0; i < 3; i++) {
+            limit.take(bucket);
+        }
+        assertTrue(limit.take(bucket) > 0);
+
+        TimeUnit.NANOSECONDS.sleep(limit.refillNanos() + TimeUnit.MILLISECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limit.take(bucket), "take " + (i + 1) + " after refilling");
+        }
+        assertTrue(limit.take(bucket) > 0);
+    }
+
+    @Test
+    void bucketsAreIndependent() {
+        RateLimit limit = RateLimit.of(600, 1);
+        AtomicLong first = RateLimit.newBucket();
+        AtomicLong second = RateLimit.newBucket();
+        assertEquals(0, limit.take(first));
+        assertTrue(limit.take(first) > 0);
+        assertEquals(0, limit.take(second));
+    }
+}
@@ -1,4 +1,5 @@
 import axios from "axios";
+import { getRefreshToken, saveRefreshToken, saveToken } from "../services/authService";
 
 const api = axios.create({
   baseURL: "http://localhost:8080/api",
@@ -12,4 +13,58 @@ api.interceptors.request.use((config) => {
   return config;
 });
 
+// One refresh at a time: requests failing together all wait for the same new token. The refresh token
+// is shared by every tab through localStorage and works only once, so tabs also take turns through a Web
+// Lock; a tab that gets the lock after another one has already rotated just picks up the new tokens
+// instead of presenting the used refresh token, which the server would treat as stolen.
+let refreshing = null;
+
+const rotate = (usedRefreshToken) => {
+  const current = getRefreshToken();
+  if (current !== usedRefreshToken) {
+    return Promise.resolve(localStorage.getItem("token"));
+  }
+  return axios
+    .post(`${api.defaults.baseURL}/auth/refresh`, { refreshToken: current })
+    .then((res) => {
+      saveToken(res.data.token);
+      saveRefreshToken(res.data.refreshToken);
+      return res.data.token;
+    });
+};
+
+const refreshAccessToken = () => {
+  if (!refreshing) {
+    const usedRefreshToken = getRefreshToken();
+    refreshing = (navigator.locks
+      ? navigator.locks.request("auth-refresh", () => rotate(usedRefreshToken))
+      : rotate(usedRefreshToken)
+    ).finally(() => {
+      refreshing = null;
+    });
+  }
+  return refreshing;
+};
+
+// Access tokens last 15 minutes; when one is rejected (401), refresh it once and replay the request.
+// A 403 is a valid token without the right role, which a refresh would not change.
+api.interceptors.response.use(
+  (response) => response,
+  async (error) => {
+    const { config, response } = error;
+    const rejected = response && response.status === 401;
+    if (!rejected || !config || config._retried || config.url?.startsWith("/auth/") || !getRefreshToken()) {
+      return Promise.reject(error);
+    }
+    config._retried = true;
+    try {
+      const token = await refreshAccessToken();
+      config.headers.Authorization = `Bearer ${token}`;
+      return api(config);
+    } catch {
+      return Promise.reject(error);
+    }
+  }
+);
+
 export default api;
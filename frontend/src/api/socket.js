@@ -0,0 +1,66 @@
+import SockJS from "sockjs-client";
+import Stomp from "stompjs";
+import { getToken } from "../services/authService";
+
+const BASE_DELAY_MS = 1000;
+const MAX_DELAY_MS = 30000;
+
+// STOMP over SockJS that reconnects by itself: after a lost connection (backend restart) or a CONNECT the
+// server turned away (rate limited), it tries again after a random delay, doubling up to 30s, so open tabs
+// don't all come back at the same moment. onConnect runs after every successful (re)connect; subscribe there.
+export const connectSocket = (onConnect) => {
+  let client = null;
+  let attempts = 0;
+  let timer = null;
+  let closed = false;
+
+  const retry = (failed) => {
+    // stompjs reports an ERROR frame and then the closed socket; retry once
+    if (closed || failed !== client || timer) return;
+    const cap = Math.min(MAX_DELAY_MS, BASE_DELAY_MS * 2 ** attempts);
+    attempts += 1;
+    timer = setTimeout(() => {
+      timer = null;
+      open();
+    }, Math.random() * cap);
+  };
+
+  const open = () => {
+    // Read on every attempt, the token may have been refreshed in the meantime
+    const token = getToken();
+    if (closed || !token) return;
+
+    const current = Stomp.over(new SockJS("http://localhost:8080/ws"));
+    current.debug = null; // Disable debug logs
+    client = current;
+    current.connect(
+      { Authorization: `Bearer ${token}` },
+      () => {
+        attempts = 0;
+        onConnect(current);
+      },
+      () => retry(current)
+    );
+  };
+
+  open();
+
+  return {
+    send: (destination, body) => {
+      if (client && client.connected) {
+        client.send(destination, {}, body);
+      }
+    },
+    disconnect: () => {
+      closed = true;
+      clearTimeout(timer);
+      if (client && client.connected) {
+        try {
+          client.disconnect();
+        } catch (e) {
+          console.error("Disconnect error", e);
+        }
+      }
+    },
+  };
+};
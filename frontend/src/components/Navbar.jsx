@@ -3,10 +3,7 @@ import { Link, useNavigate } from "react-router-dom";
 import { logout, getToken } from "../services/authService";
 import api from "../api/axios";
 import { DarkModeContext } from "../context/DarkModeContext";
-
-// --- 1. Import WebSocket Libraries ---
-import SockJS from "sockjs-client";
-import Stomp from "stompjs";
+import { connectSocket } from "../api/socket";
 
 function Navbar() {
   const [userName, setUserName] = useState("");
@@ -23,46 +20,31 @@ function Navbar() {
   const [notification, setNotification] = useState(null);
   const stompClientRef = useRef(null);
 
-  // Existing Polling for Unread Messages
-  useEffect(() => {
-    if (token) {
-      fetchUnreadCount();
-      const interval = setInterval(fetchUnreadCount, 5000); // Poll every 5 seconds
-      return () => clearInterval(interval);
-    }
-  }, [token]);
-
   // --- 3. WebSocket Connection for Order Notifications ---
   useEffect(() => {
     if (!token) return;
 
-    // Connect to WebSocket
-    const socket = new SockJS("http://localhost:8080/ws");
-    const client = Stomp.over(socket);
-    client.debug = null; // Disable debug logs
-
-    client.connect(
-      { Authorization: `Bearer ${token}` },
-      () => {
-        // Subscribe to Notifications (e.g. "New Order Received!")
-        client.subscribe("/user/queue/notifications", (payload) => {
-          setNotification(payload.body);
-          
-          // Hide popup automatically after 5 seconds
-          setTimeout(() => setNotification(null), 5000);
-        });
-      },
-      (err) => console.error("Navbar Socket Error:", err)
-    );
-
-    stompClientRef.current = client;
+    // Connect to WebSocket (reconnects by itself)
+    const socket = connectSocket((client) => {
+      // Unread total is pushed whenever it changes; fetch it once per (re)connect to catch up
+      client.subscribe("/user/queue/unread", (payload) => {
+        setUnreadCount(Number(payload.body));
+      });
+      fetchUnreadCount();
+
+      // Subscribe to Notifications (e.g. "New Order Received!")
+      client.subscribe("/user/queue/notifications", (payload) => {
+        setNotification(payload.body);
+
+        // Hide popup automatically after 5 seconds
+        setTimeout(() => setNotification(null), 5000);
+      });
+    });
+
+    stompClientRef.current = socket;
 
     // Cleanup on unmount
-    return () => {
-      if (client && client.connected) {
-        client.disconnect();
-      }
-    };
+    return () => socket.disconnect();
   }, [token]);
 
   const fetchUnreadCount = async () => {
@@ -239,7 +239,7 @@ function AdminDashboard() {
                     <tr key={p.id} className="border-b dark:border-gray-700 last:border-0 hover:bg-gray-50 dark:hover:bg-gray-700 transition">
                       <td className="py-3">#{p.id}</td>
                       <td className="py-3">
-                        <img src={`http://localhost:8080${p.imageUrl}`} alt="img" className="w-10 h-10 object-cover rounded" onError={(e) => e.target.src="/default.png"} />
+                        <img src={`http://localhost:8080${p.thumbnailUrl || p.imageUrl}`} alt="img" className="w-10 h-10 object-cover rounded" onError={(e) => e.target.src="/default.png"} />
                       </td>
                       <td className="py-3 font-medium">{p.title}</td>
                       <td className="py-3">${p.price}</td>
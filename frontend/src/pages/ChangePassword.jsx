@@ -1,6 +1,6 @@
     import { useState } from "react";
     import api from "../api/axios";
-    import { getToken } from "../services/authService";
+    import { getToken, saveRefreshToken, saveToken } from "../services/authService";
     import { useNavigate } from "react-router-dom";
 
     function ChangePassword() {
@@ -28,7 +28,7 @@
         const token = getToken();
 
         
-        await api.put(
+        const res = await api.put(
             "/user/change-password",
             {
             oldPassword,
@@ -41,7 +41,10 @@
             }
         );
 
-        
+        // Every other session is signed out; this one continues on a fresh pair of tokens
+        saveToken(res.data.token);
+        saveRefreshToken(res.data.refreshToken);
+
         alert("Password updated successfully ..");
 
      
@@ -64,7 +64,7 @@ function Favorites() {
             <Link to={`/product/${product.id}`} key={product.id} className="group relative block bg-white rounded-xl shadow-sm border overflow-hidden hover:shadow-xl transition-all">
               <div className="h-48 overflow-hidden bg-gray-100 relative">
                 <img
-                  src={product.imageUrl ? `${IMAGE_BASE_URL}${product.imageUrl}` : "/placeholder-product.png"}
+                  src={(product.cardUrl || product.imageUrl) ? `${IMAGE_BASE_URL}${product.cardUrl || product.imageUrl}` : "/placeholder-product.png"}
                   alt={product.title}
                   className="w-full h-full object-cover group-hover:scale-105 transition duration-500"
                   onError={(e) => { e.target.src = "/placeholder-product.png"; }}
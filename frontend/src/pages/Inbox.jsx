@@ -2,9 +2,14 @@ import React, { useState, useEffect } from "react";
 import api from "../api/axios";
 import { Link } from "react-router-dom";
 
+const PAGE_SIZE = 20;
+
 function Inbox() {
   const [conversations, setConversations] = useState([]);
   const [loading, setLoading] = useState(true);
+  // Cursor for the next page of older conversations, null on the last page
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     fetchInbox();
@@ -12,8 +17,9 @@ function Inbox() {
 
   const fetchInbox = async () => {
     try {
-      const res = await api.get("/messages/inbox");
-      setConversations(res.data);
+      const res = await api.get("/messages/inbox", { params: { size: PAGE_SIZE } });
+      setConversations(res.data.items);
+      setNextCursor(res.data.nextCursor);
     } catch (err) {
       console.error("Failed to load inbox", err);
     } finally {
@@ -21,6 +27,20 @@ function Inbox() {
     }
   };
 
+  const loadMore = async () => {
+    if (!nextCursor || loadingMore) return;
+    setLoadingMore(true);
+    try {
+      const res = await api.get("/messages/inbox", { params: { size: PAGE_SIZE, cursor: nextCursor } });
+      setConversations((prev) => [...prev, ...res.data.items]);
+      setNextCursor(res.data.nextCursor);
+    } catch (err) {
+      console.error("Failed to load inbox", err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   if (loading) return <div className="p-10 text-center">Loading messages...</div>;
 
   return (
@@ -46,11 +66,18 @@ function Inbox() {
                 </div>
 
                 {/* Info */}
-                <div className="ml-4 flex-grow">
+                <div className="ml-4 flex-grow overflow-hidden">
                   <h3 className="font-bold text-gray-800">{user.name}</h3>
-                  <p className="text-sm text-gray-500">Click to view conversation</p>
+                  <p className="text-sm text-gray-500 truncate">{user.lastMessage || "Click to view conversation"}</p>
                 </div>
 
+                {/* Unread badge */}
+                {user.unreadCount > 0 && (
+                  <span className="mr-3 min-w-[1.5rem] px-2 py-0.5 rounded-full bg-indigo-600 text-white text-xs font-bold text-center">
+                    {user.unreadCount}
+                  </span>
+                )}
+
                 {/* Arrow Icon */}
                 <div className="text-gray-400">
                   <svg className="w-5 h-5" fill="none" stroke="currentColor" viewBox="0 0 24 24">
@@ -61,6 +88,15 @@ function Inbox() {
             ))}
           </div>
         )}
+        {nextCursor && (
+          <button
+            onClick={loadMore}
+            disabled={loadingMore}
+            className="w-full p-3 text-sm font-semibold text-indigo-600 hover:bg-gray-50 border-t disabled:opacity-50"
+          >
+            {loadingMore ? "Loading..." : "Load more conversations"}
+          </button>
+        )}
       </div>
     </div>
   );
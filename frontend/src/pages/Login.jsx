@@ -1,7 +1,7 @@
 import { useState } from "react";
 import { useNavigate } from "react-router-dom";
 import api from "../api/axios";
-import { saveToken } from "../services/authService";
+import { saveRefreshToken, saveToken } from "../services/authService";
 
 function Login() {
   const [email, setEmail] = useState("");
@@ -15,10 +15,11 @@ function Login() {
 
     try {
       const res = await api.post("/auth/login", { email, password });
-      const { token, role, name } = res.data;
+      const { token, refreshToken, role, name } = res.data;
 
       // Save token and user info
       saveToken(token);
+      saveRefreshToken(refreshToken);
       localStorage.setItem("user", JSON.stringify({ name, role }));
 
       // Redirect based on role
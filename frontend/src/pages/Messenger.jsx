@@ -1,7 +1,9 @@
 import React, { useState, useEffect, useRef } from "react";
 import api from "../api/axios";
-import SockJS from "sockjs-client";
-import Stomp from "stompjs";
+import { connectSocket } from "../api/socket";
+
+const PAGE_SIZE = 30;
+const INBOX_PAGE_SIZE = 50;
 
 function Messenger() {
   const [conversations, setConversations] = useState([]);
@@ -9,6 +11,10 @@ function Messenger() {
   const [messages, setMessages] = useState([]);
   const [text, setText] = useState("");
   const [currentUser, setCurrentUser] = useState(null);
+  // Cursor for the next older page of the open conversation, null once the start is reached
+  const [olderCursor, setOlderCursor] = useState(null);
+  const [loadingOlder, setLoadingOlder] = useState(false);
+  const scrollToBottomRef = useRef(true);
 
   const bottomRef = useRef(null);
   const stompClientRef = useRef(null);
@@ -24,45 +30,33 @@ function Messenger() {
   useEffect(() => {
     fetchUserAndInbox();
 
-    const socket = new SockJS("http://localhost:8080/ws");
-    const stompClient = Stomp.over(socket);
-    stompClient.debug = null; // Disable debug logs
-
-    const token = localStorage.getItem("token");
-
-    stompClient.connect(
-      { Authorization: `Bearer ${token}` },
-      () => {
-        
-        stompClient.subscribe("/user/queue/messages", (payload) => {
-          const newMessage = JSON.parse(payload.body);
-          handleIncomingMessage(newMessage);
-        });
-      },
-      (err) => {
-        console.error("Socket error", err);
-      }
-    );
+    const socket = connectSocket((stompClient) => {
+      stompClient.subscribe("/user/queue/messages", (payload) => {
+        const newMessage = JSON.parse(payload.body);
+        handleIncomingMessage(newMessage);
+      });
+      // A message shown before it was saved, that then could not be
+      stompClient.subscribe("/user/queue/retracted", (payload) => {
+        const id = JSON.parse(payload.body);
+        setMessages((prev) => prev.filter((m) => m.id !== id));
+        fetchInboxOnly();
+      });
+      stompClient.subscribe("/user/queue/errors", (payload) => {
+        alert(JSON.parse(payload.body).error);
+      });
+    });
 
-    stompClientRef.current = stompClient;
+    stompClientRef.current = socket;
 
-    return () => {
-      if (stompClientRef.current && stompClientRef.current.connected) {
-         try {
-             stompClientRef.current.disconnect();
-         } catch (e) {
-             console.error("Disconnect error", e);
-         }
-      }
-    };
+    return () => socket.disconnect();
   }, []);
 
   const fetchUserAndInbox = async () => {
     try {
       const userRes = await api.get("/user/me");
       setCurrentUser(userRes.data);
-      const inboxRes = await api.get("/messages/inbox");
-      setConversations(inboxRes.data);
+      const inboxRes = await api.get("/messages/inbox", { params: { size: INBOX_PAGE_SIZE } });
+      setConversations(inboxRes.data.items);
     } catch (err) {
       console.error(err);
     }
@@ -70,8 +64,8 @@ function Messenger() {
 
   const fetchInboxOnly = async () => {
       try {
-        const res = await api.get("/messages/inbox");
-        setConversations(res.data);
+        const res = await api.get("/messages/inbox", { params: { size: INBOX_PAGE_SIZE } });
+        setConversations(res.data.items);
       } catch (err) { console.error(err); }
   };
 
@@ -91,23 +85,65 @@ function Messenger() {
       return prev;
     });
 
+    // Already on screen, so it is read
+    if (currentActiveChat && newMessage.sender.id === currentActiveChat.id) {
+      api.post(`/messages/mark-read/${currentActiveChat.id}`).catch((err) => console.error(err));
+    }
+
     // Refresh inbox list (e.g., to move conversation to top)
     fetchInboxOnly();
   };
 
-  // 3. Load History when clicking a chat
+  // 3. Load the latest page of history when clicking a chat, and mark it read
   useEffect(() => {
     if (activeChat) {
+      setOlderCursor(null);
       api
-        .get(`/messages/conversation/${activeChat.id}`)
-        .then((res) => setMessages(res.data))
+        .post(`/messages/mark-read/${activeChat.id}`)
+        .then(() =>
+          setConversations((prev) =>
+            prev.map((c) => (c.id === activeChat.id ? { ...c, unreadCount: 0 } : c))
+          )
+        )
+        .catch((err) => console.error(err));
+      api
+        .get(`/messages/conversation/${activeChat.id}`, { params: { size: PAGE_SIZE } })
+        .then((res) => {
+          scrollToBottomRef.current = true;
+          setMessages(res.data.items);
+          setOlderCursor(res.data.nextCursor);
+        })
         .catch((err) => console.error(err));
     }
   }, [activeChat]);
 
+  // Older pages go on top, without jumping to the bottom
+  const loadOlder = async () => {
+    if (!activeChat || !olderCursor || loadingOlder) return;
+    const chatId = activeChat.id;
+    setLoadingOlder(true);
+    try {
+      const res = await api.get(`/messages/conversation/${chatId}`, {
+        params: { size: PAGE_SIZE, cursor: olderCursor },
+      });
+      // Another chat was opened meanwhile
+      if (activeChatRef.current?.id !== chatId) return;
+      scrollToBottomRef.current = false;
+      setMessages((prev) => [...res.data.items, ...prev]);
+      setOlderCursor(res.data.nextCursor);
+    } catch (err) {
+      console.error(err);
+    } finally {
+      setLoadingOlder(false);
+    }
+  };
+
   // Scroll to bottom
   useEffect(() => {
-    bottomRef.current?.scrollIntoView({ behavior: "smooth" });
+    if (scrollToBottomRef.current) {
+      bottomRef.current?.scrollIntoView({ behavior: "smooth" });
+    }
+    scrollToBottomRef.current = true;
   }, [messages]);
 
   // 4. Send Message via WebSocket
@@ -120,7 +156,7 @@ function Messenger() {
       content: text,
     };
 
-    stompClientRef.current.send("/app/chat", {}, JSON.stringify(chatMessage));
+    stompClientRef.current.send("/app/chat", JSON.stringify(chatMessage));
     setText("");
   };
 
@@ -154,8 +190,17 @@ function Messenger() {
                 </div>
                 <div className="ml-4 flex-grow overflow-hidden">
                    <h3 className="font-semibold text-gray-900 truncate">{user.name}</h3>
-                   <p className="text-sm text-gray-500 truncate">Tap to chat</p>
+                   <p className="text-sm text-gray-500 truncate">
+                     {user.lastMessage
+                       ? `${user.lastSenderId === currentUser?.id ? "You: " : ""}${user.lastMessage}`
+                       : "Tap to chat"}
+                   </p>
                 </div>
+                {user.unreadCount > 0 && (
+                  <span className="ml-2 min-w-[1.25rem] px-1.5 py-0.5 rounded-full bg-green-600 text-white text-xs text-center flex-shrink-0">
+                    {user.unreadCount}
+                  </span>
+                )}
               </div>
             ))
           )}
@@ -182,7 +227,18 @@ function Messenger() {
             {/* Chat Area - WhatsApp Background style */}
             <div className="flex-grow overflow-y-auto p-4 space-y-2 relative" 
                  style={{ backgroundImage: "url('https://user-images.githubusercontent.com/15075759/28719144-86dc0f70-73b1-11e7-911d-60d70fcded21.png')", backgroundRepeat: 'repeat' }}>
-                
+
+                {olderCursor && (
+                    <div className="flex justify-center mb-2">
+                        <button
+                            onClick={loadOlder}
+                            disabled={loadingOlder}
+                            className="px-3 py-1 text-xs bg-white text-gray-600 rounded-full shadow-sm hover:bg-gray-50 disabled:opacity-50"
+                        >
+                            {loadingOlder ? "Loading..." : "Load older messages"}
+                        </button>
+                    </div>
+                )}
                 {messages.map((msg) => {
                     const isMe = msg.sender.id === currentUser?.id;
                     return (
@@ -76,7 +76,7 @@ function MyProducts() {
                   {/* Link wrapper only around the top part */}
                   <Link to={`/edit-product/${product.id}`} className="block h-48 overflow-hidden bg-gray-100 relative">
                       <img 
-                        src={product.imageUrl ? `${IMAGE_BASE_URL}${product.imageUrl}` : "/placeholder-product.png"} 
+                        src={(product.cardUrl || product.imageUrl) ? `${IMAGE_BASE_URL}${product.cardUrl || product.imageUrl}` : "/placeholder-product.png"} 
                         alt={product.title}
                         className="w-full h-full object-cover group-hover:scale-105 transition-transform duration-300"
                         onError={(e) => { e.target.src = "/placeholder-product.png"; }}
@@ -71,7 +71,7 @@ function ProductDetails() {
         {/* Image Section */}
         <div className="h-96 md:h-auto bg-gray-100">
           <img
-            src={product.imageUrl ? `${IMAGE_BASE_URL}${product.imageUrl}` : "/placeholder-product.png"}
+            src={(product.detailUrl || product.imageUrl) ? `${IMAGE_BASE_URL}${product.detailUrl || product.imageUrl}` : "/placeholder-product.png"}
             alt={product.title}
             className="w-full h-full object-cover"
             onError={(e) => { e.target.src = "/placeholder-product.png"; }}
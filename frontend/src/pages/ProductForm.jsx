@@ -50,33 +50,61 @@ function ProductForm() {
     }
   };
 
+  // Sends the photo straight to storage when the backend supports it. Returns the image URL to put in
+  // the dto, or null to fall back to sending the file with the form.
+  const uploadDirect = async (file) => {
+    if (!window.crypto?.subtle) return null;
+    const digest = await crypto.subtle.digest("SHA-256", await file.arrayBuffer());
+    const sha256 = Array.from(new Uint8Array(digest))
+      .map((b) => b.toString(16).padStart(2, "0"))
+      .join("");
+    try {
+      const res = await api.post("/uploads/presign", {
+        sha256,
+        contentType: file.type,
+        size: file.size,
+      });
+      const { url, upload } = res.data;
+      // No upload means the same photo is already stored
+      if (upload) {
+        const put = await fetch(upload.url, { method: upload.method, headers: upload.headers, body: file });
+        if (!put.ok) return null;
+      }
+      return url;
+    } catch (error) {
+      if (error.response?.status === 501) return null;
+      throw error;
+    }
+  };
+
   const handleSubmit = async (e) => {
     e.preventDefault();
     setLoading(true);
 
-    const data = new FormData();
-    
-    // Append JSON data
-    data.append(
-      "dto",
-      new Blob([JSON.stringify(formData)], { type: "application/json" })
-    );
-
-    // Append Image
-    if (imageFile) {
-      data.append("image", imageFile);
-    }
-
     try {
       if (id) {
         await api.put(`/products/update/${id}`, formData); 
       } else {
+        const data = new FormData();
+        const imageUrl = imageFile ? await uploadDirect(imageFile) : null;
+
+        // Append JSON data
+        data.append(
+          "dto",
+          new Blob([JSON.stringify(imageUrl ? { ...formData, imageUrl } : formData)], { type: "application/json" })
+        );
+
+        // Append Image
+        if (imageFile && !imageUrl) {
+          data.append("image", imageFile);
+        }
+
         await api.post("/products/add", data); 
       }
       navigate("/my-products");
     } catch (error) {
       console.error("Error saving product:", error);
-      if (error.response?.status === 403) {
+      if (error.response?.status === 401) {
         alert("Session expired. Please log out and log in again.");
       } else {
         alert("Error saving product. Check console for details.");
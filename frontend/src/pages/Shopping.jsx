@@ -5,12 +5,19 @@ import { Link } from "react-router-dom";
 function Shopping() {
   const [products, setProducts] = useState([]);
   const [search, setSearch] = useState("");
+  const [debouncedSearch, setDebouncedSearch] = useState("");
   const [category, setCategory] = useState("");
   const [loading, setLoading] = useState(true);
   
   // New State for Wishlist (stores IDs of liked products)
   const [wishlist, setWishlist] = useState([]);
 
+  // "Trending now" rail, shown above the grid when not searching
+  const [trending, setTrending] = useState([]);
+
+  // Typeahead suggestions for the search box
+  const [suggestions, setSuggestions] = useState([]);
+
   const IMAGE_BASE_URL = "http://localhost:8080";
   const token = localStorage.getItem("token");
 
@@ -20,12 +27,41 @@ function Shopping() {
     if (token) {
       fetchWishlist();
     }
-  }, [search, category]);
+  }, [debouncedSearch, category]);
+
+  useEffect(() => {
+    api.get("/products/trending?limit=8")
+      .then((response) => setTrending(response.data))
+      .catch(() => setTrending([]));
+  }, []);
+
+  // Only hit browse once typing pauses, not on every keystroke
+  useEffect(() => {
+    const timer = setTimeout(() => setDebouncedSearch(search), 300);
+    return () => clearTimeout(timer);
+  }, [search]);
+
+  // Ask for completions a moment after the user stops typing
+  useEffect(() => {
+    if (!search.trim()) {
+      setSuggestions([]);
+      return;
+    }
+    const timer = setTimeout(async () => {
+      try {
+        const response = await api.get(`/products/suggest?prefix=${encodeURIComponent(search)}`);
+        setSuggestions(response.data);
+      } catch (error) {
+        setSuggestions([]);
+      }
+    }, 150);
+    return () => clearTimeout(timer);
+  }, [search]);
 
   const fetchProducts = async () => {
     try {
       const params = new URLSearchParams();
-      if (search) params.append("search", search);
+      if (debouncedSearch) params.append("search", debouncedSearch);
       if (category) params.append("category", category);
 
       const response = await api.get(`/products/browse?${params.toString()}`);
@@ -88,7 +124,13 @@ function Shopping() {
               className="w-full p-3 border rounded-lg focus:ring-2 focus:ring-indigo-500 outline-none"
               value={search}
               onChange={(e) => setSearch(e.target.value)}
+              list="search-suggestions"
             />
+            <datalist id="search-suggestions">
+              {suggestions.map((suggestion) => (
+                <option key={suggestion} value={suggestion} />
+              ))}
+            </datalist>
           </div>
 
           {/* Category Dropdown */}
@@ -108,6 +150,33 @@ function Shopping() {
         </div>
       </div>
 
+      {/* Trending Rail */}
+      {!search && !category && trending.length > 0 && (
+        <div className="mb-8">
+          <h2 className="text-xl font-bold text-gray-800 mb-4">Trending now</h2>
+          <div className="flex gap-4 overflow-x-auto pb-2">
+            {trending.map((product) => (
+              <Link to={`/product/${product.id}`} key={product.id} className="flex-shrink-0 w-44 group">
+                <div className="bg-white rounded-xl shadow-sm hover:shadow-md transition-shadow overflow-hidden border border-gray-100">
+                  <div className="h-28 bg-gray-200 overflow-hidden">
+                    <img
+                      src={(product.cardUrl || product.imageUrl) ? `${IMAGE_BASE_URL}${product.cardUrl || product.imageUrl}` : "/placeholder-product.png"}
+                      alt={product.title}
+                      className="w-full h-full object-cover"
+                      onError={(e) => { e.target.src = "/placeholder-product.png"; }}
+                    />
+                  </div>
+                  <div className="p-3">
+                    <h3 className="text-sm font-bold text-gray-800 truncate">{product.title}</h3>
+                    <span className="text-sm font-black text-gray-900">${product.price}</span>
+                  </div>
+                </div>
+              </Link>
+            ))}
+          </div>
+        </div>
+      )}
+
       {/* Product Grid */}
       {loading ? (
         <div className="text-center py-10">Loading products...</div>
@@ -122,7 +191,7 @@ function Shopping() {
                 {/* Image Container */}
                 <div className="h-56 overflow-hidden bg-gray-200 relative">
                   <img
-                    src={product.imageUrl ? `${IMAGE_BASE_URL}${product.imageUrl}` : "/placeholder-product.png"}
+                    src={(product.cardUrl || product.imageUrl) ? `${IMAGE_BASE_URL}${product.cardUrl || product.imageUrl}` : "/placeholder-product.png"}
                     alt={product.title}
                     className="w-full h-full object-cover group-hover:scale-110 transition-transform duration-500"
                     onError={(e) => { e.target.src = "/placeholder-product.png"; }}
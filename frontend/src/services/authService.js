@@ -6,6 +6,24 @@ export const getToken = () => {
   return localStorage.getItem("token");
 };
 
+export const saveRefreshToken = (refreshToken) => {
+  localStorage.setItem("refreshToken", refreshToken);
+};
+
+export const getRefreshToken = () => {
+  return localStorage.getItem("refreshToken");
+};
+
 export const logout = () => {
+  const refreshToken = getRefreshToken();
   localStorage.removeItem("token");
+  localStorage.removeItem("refreshToken");
+  // Revoke the session server-side too; nothing to do if it fails
+  if (refreshToken) {
+    fetch("http://localhost:8080/api/auth/logout", {
+      method: "POST",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify({ refreshToken }),
+    }).catch(() => {});
+  }
 };